@@ -0,0 +1,173 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Spreads enemy decisions (sight checks and path steps) over frames so AI stays within a slice of
+// the frame. Only enemies between steps need a decision; they are served closest to the hero
+// first, and every frame an enemy waits counts as if it were a few tiles closer, so distant
+// enemies are delayed rather than starved. At least one decision runs per frame.
+//
+// The budget is turned into a fixed number of decisions per frame rather than checked against the
+// clock, so which enemies decide and which wait never depends on timing, and a replay of the same
+// seed matches on any machine. Elapsed time is only measured for the metrics.
+//
+// Frames with at least parallelThreshold enemies waiting (or every frame, after setParallel(true))
+// run their decisions on the fork-join pool against the maze and hero tile as they were when the
+// frame started (nothing changes them until the decisions are in), and apply the resulting intents
+// in queue order afterwards. Smaller crowds stay serial, where forking costs more than it saves.
+// Both paths pick the same enemies and give the same intents, so the choice only affects speed.
+public class AiScheduler {
+
+    public static final long DEFAULT_BUDGET_NANOS = 1_000_000; // 1 ms of an 8.3 ms simulation tick
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 64;
+    // Rough cost of one decision, for turning the budget into a batch size
+    private static final long ESTIMATED_DECISION_NANOS = 2_000;
+    private static final int TILES_PER_WAITING_FRAME = 4;
+    private static final int KEY_OFFSET = 1 << 30;
+
+    private final long budgetNanos;
+    private final int parallelThreshold;
+    private final int maxDecisions;
+    private boolean parallel;
+    private long[] queue = new long[0];  // (priority + KEY_OFFSET) << 32 | enemy index
+    private int[] waitingFrames = new int[0];
+    private Enemy.Intent[] intents = new Enemy.Intent[0];
+    private long[] decisionNanos = new long[0];
+
+    // Metrics for the last frame, plus a smoothed cost for display
+    private int lastDecisions;
+    private int lastDeferred;
+    private long lastFrameNanos;
+    private long lastMaxDecisionNanos;
+    private double averageFrameNanos;
+    private long totalDecisions;
+    private boolean lastParallel;
+
+    public AiScheduler() {
+        this(DEFAULT_BUDGET_NANOS, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    // A threshold of Integer.MAX_VALUE keeps every frame serial unless setParallel(true) is called
+    public AiScheduler(long budgetNanos, int parallelThreshold) {
+        this.budgetNanos = budgetNanos;
+        this.parallelThreshold = parallelThreshold;
+        this.maxDecisions = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budgetNanos / ESTIMATED_DECISION_NANOS));
+    }
+
+    public void runFrame(List<Enemy> enemies, Hero hero, Maze maze) {
+        long frameStart = System.nanoTime();
+        int count = enemies.size();
+        if (waitingFrames.length < count) {
+            waitingFrames = Arrays.copyOf(waitingFrames, count);
+            queue = new long[count];
+            intents = new Enemy.Intent[count];
+            decisionNanos = new long[count];
+        }
+
+        int heroRow = hero.getRow();
+        int heroCol = hero.getCol();
+        int heroTile = maze.index(heroRow, heroCol);
+        int pending = 0;
+        for (int i = 0; i < count; i++) {
+            Enemy enemy = enemies.get(i);
+            if (!enemy.needsDecision()) {
+                waitingFrames[i] = 0;
+                continue;
+            }
+            int distance = Math.abs(enemy.getRow() - heroRow) + Math.abs(enemy.getCol() - heroCol);
+            int priority = Math.max(-KEY_OFFSET, distance - waitingFrames[i] * TILES_PER_WAITING_FRAME);
+            queue[pending++] = ((long) (priority + KEY_OFFSET) << 32) | i;
+        }
+        Arrays.sort(queue, 0, pending);
+
+        int decisions = Math.min(pending, maxDecisions);
+        long maxDecisionNanos = 0;
+        lastParallel = parallel || pending >= parallelThreshold;
+        if (lastParallel) {
+            // Each intent lands at its queue position, so they are applied in queue order below
+            IntStream.range(0, decisions).parallel().forEach(q -> {
+                long start = System.nanoTime();
+                intents[q] = enemies.get((int) queue[q]).decide(maze, heroTile);
+                decisionNanos[q] = System.nanoTime() - start;
+            });
+            for (int q = 0; q < decisions; q++) {
+                enemies.get((int) queue[q]).applyIntent(intents[q], maze);
+                intents[q] = null;
+                maxDecisionNanos = Math.max(maxDecisionNanos, decisionNanos[q]);
+            }
+        } else {
+            long now = frameStart;
+            for (int q = 0; q < decisions; q++) {
+                Enemy enemy = enemies.get((int) queue[q]);
+                long decisionStart = now;
+                enemy.applyIntent(enemy.decide(maze, heroTile), maze);
+                now = System.nanoTime();
+                maxDecisionNanos = Math.max(maxDecisionNanos, now - decisionStart);
+            }
+        }
+        for (int q = 0; q < pending; q++) {
+            int i = (int) queue[q];
+            // Anyone left over waits a frame and moves up the queue
+            waitingFrames[i] = q < decisions ? 0 : waitingFrames[i] + 1;
+        }
+
+        lastDecisions = decisions;
+        lastDeferred = pending - decisions;
+        lastFrameNanos = System.nanoTime() - frameStart;
+        lastMaxDecisionNanos = maxDecisionNanos;
+        averageFrameNanos = averageFrameNanos == 0 ? lastFrameNanos : averageFrameNanos * 0.95 + lastFrameNanos * 0.05;
+        totalDecisions += decisions;
+    }
+
+    // Forces every frame onto the fork-join pool, whatever the number of enemies waiting
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    // Most decisions a frame makes, worked out from the budget
+    public int getMaxDecisions() {
+        return maxDecisions;
+    }
+
+    // Whether the last frame's decisions ran on the fork-join pool
+    public boolean isLastFrameParallel() {
+        return lastParallel;
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public int getLastDecisions() {
+        return lastDecisions;
+    }
+
+    // Enemies that wanted a decision last frame but were pushed to a later one
+    public int getLastDeferred() {
+        return lastDeferred;
+    }
+
+    public long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+
+    public long getLastMaxDecisionNanos() {
+        return lastMaxDecisionNanos;
+    }
+
+    public double getAverageFrameNanos() {
+        return averageFrameNanos;
+    }
+
+    public long getTotalDecisions() {
+        return totalDecisions;
+    }
+}
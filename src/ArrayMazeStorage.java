@@ -0,0 +1,59 @@
+import java.util.Arrays;
+
+// One byte per tile in a heap array. Fastest access, fine up to a few hundred million tiles.
+public class ArrayMazeStorage implements MazeStorage {
+    private final byte[] tiles;
+
+    public ArrayMazeStorage(int size) {
+        this.tiles = new byte[size];
+    }
+
+    private ArrayMazeStorage(byte[] tiles) {
+        this.tiles = tiles;
+    }
+
+    @Override
+    public int get(int index) {
+        return tiles[index];
+    }
+
+    @Override
+    public void set(int index, int type) {
+        tiles[index] = (byte) type;
+    }
+
+    @Override
+    public void fill(int from, int to, int type) {
+        Arrays.fill(tiles, from, to, (byte) type);
+    }
+
+    @Override
+    public void copyWithin(int from, int to, int length) {
+        System.arraycopy(tiles, from, tiles, to, length);
+    }
+
+    @Override
+    public int size() {
+        return tiles.length;
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        return 16L + tiles.length;
+    }
+
+    @Override
+    public boolean isOffHeap() {
+        return false;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    @Override
+    public MazeStorage copy() {
+        return new ArrayMazeStorage(tiles.clone());
+    }
+}
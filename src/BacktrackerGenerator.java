@@ -0,0 +1,65 @@
+import java.util.Random;
+
+// Randomized depth-first search driven by an explicit stack of cell indices, so the
+// maze size is not limited by the thread stack and no objects are allocated per cell.
+public class BacktrackerGenerator implements MazeGenerator {
+
+    // Offsets for the four neighbouring cells: Up, Down, Left, Right
+    private static final int[] DIR_ROW = {-1, 1, 0, 0};
+    private static final int[] DIR_COL = {0, 0, -1, 1};
+
+    @Override
+    public void carve(Maze maze, Random random) {
+        int rows = maze.getRows() / 2;
+        int cols = maze.getCols() / 2;
+        int[] stack = new int[rows * cols];
+        int[] candidates = new int[4];
+        int top = 0;
+
+        int startRow = random.nextInt(rows) * 2 + 1;
+        int startCol = random.nextInt(cols) * 2 + 1;
+        maze.set(startRow, startCol, MazeLogic.FLOOR);
+        stack[top++] = (startRow / 2) * cols + startCol / 2;
+
+        while (top > 0) {
+            int cell = stack[top - 1];
+            int currentRow = (cell / cols) * 2 + 1;
+            int currentCol = (cell % cols) * 2 + 1;
+
+            int count = 0;
+            for (int dir = 0; dir < 4; dir++) {
+                if (isUnvisited(maze, currentRow + DIR_ROW[dir] * 2, currentCol + DIR_COL[dir] * 2)) {
+                    candidates[count++] = dir;
+                }
+            }
+
+            if (count == 0) {
+                top--; // Dead end, backtrack
+                continue;
+            }
+
+            int dir = candidates[random.nextInt(count)];
+            int newRow = currentRow + DIR_ROW[dir] * 2;
+            int newCol = currentCol + DIR_COL[dir] * 2;
+            maze.set(currentRow + DIR_ROW[dir], currentCol + DIR_COL[dir], MazeLogic.FLOOR);
+            maze.set(newRow, newCol, MazeLogic.FLOOR);
+            stack[top++] = (newRow / 2) * cols + newCol / 2;
+        }
+    }
+
+    private static boolean isUnvisited(Maze maze, int row, int col) {
+        return row > 0 && row < maze.getRows() - 1 &&
+                col > 0 && col < maze.getCols() - 1 &&
+                maze.get(row, col) == MazeLogic.WALL;
+    }
+
+    @Override
+    public String getName() {
+        return "Backtracker";
+    }
+
+    @Override
+    public long estimateWorkingBytes(int rows, int cols) {
+        return 4L * rows * cols; // Cell stack
+    }
+}
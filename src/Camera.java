@@ -0,0 +1,54 @@
+// Follows the hero across mazes bigger than the window. Eases towards its target each tick at a
+// rate that doesn't depend on the tick length, and remembers where it was at the start of the
+// tick so frames can be drawn between ticks like any other moving thing.
+public class Camera {
+
+    private static final double STIFFNESS = 6.0; // Per second; covers ~95% of the gap in half a second
+
+    private double x, y;
+    private double previousX, previousY;
+
+    public Camera(double x, double y) {
+        this.x = x;
+        this.y = y;
+        previousX = x;
+        previousY = y;
+    }
+
+    public void follow(double targetX, double targetY, double deltaTime) {
+        previousX = x;
+        previousY = y;
+        double blend = 1 - Math.exp(-STIFFNESS * deltaTime);
+        x += (targetX - x) * blend;
+        y += (targetY - y) * blend;
+    }
+
+    public void snapTo(double x, double y) {
+        this.x = x;
+        this.y = y;
+        previousX = x;
+        previousY = y;
+    }
+
+    // Moves the camera with the world when the endless maze scrolls
+    public void shiftY(double dy) {
+        y += dy;
+        previousY += dy;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getPreviousX() {
+        return previousX;
+    }
+
+    public double getPreviousY() {
+        return previousY;
+    }
+}
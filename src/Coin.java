@@ -2,13 +2,14 @@ import java.awt.image.BufferedImage;
 import java.util.List;
 import java.util.Random;
 
-public class Coin {
+public class Coin implements MazeItem {
+    private static final int TICKS_PER_FRAME = GameLoop.TICKS_PER_SECOND / 5; // 200 ms
+
     private double x, y;
     private int row, col;
     private boolean isCollected = false;
-    private int currentFrame = 0;
-    private long lastFrameTime = 0;
     private List<BufferedImage> animationFrames;
+    private final int animationPhase;
     private Random random = new Random();
 
     public Coin(double x, double y, int row, int col, List<BufferedImage> animationFrames) {
@@ -17,23 +18,19 @@ public class Coin {
         this.row = row;
         this.col = col;
         this.animationFrames = animationFrames;
-        this.lastFrameTime = System.currentTimeMillis() + random.nextInt(1000); // Random offset for desync
-    }
-
-    public void updateAnimation(double deltaTime) {
-        if (isCollected) return; // Stop animation if collected
-
-        long currentTime = System.currentTimeMillis();
-        if (currentTime > lastFrameTime + 200) { // Update frame every 100 milliseconds
-            currentFrame = (currentFrame + 1) % animationFrames.size();
-            lastFrameTime = currentTime;
-        }
+        this.animationPhase = random.nextInt(GameLoop.TICKS_PER_SECOND); // Random offset for desync
     }
 
     public void collect() {
         isCollected = true;
     }
 
+    // Moves the coin when the endless maze scrolls
+    public void shiftY(double dy) {
+        y += dy;
+        row = (int) (y / MazePanel.CELL_SIZE);
+    }
+
     // Getters
     public double getX() {
         return x;
@@ -55,7 +52,15 @@ public class Coin {
         return isCollected;
     }
 
-    public BufferedImage getImage() {
-        return animationFrames.get(currentFrame);
+    public List<BufferedImage> getAnimationFrames() {
+        return animationFrames;
+    }
+
+    public int getTicksPerFrame() {
+        return TICKS_PER_FRAME;
+    }
+
+    public int getAnimationPhase() {
+        return animationPhase;
     }
 }
\ No newline at end of file
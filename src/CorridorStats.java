@@ -0,0 +1,74 @@
+// Shape statistics of a carved maze, computed from the degree of every open tile.
+// Corridors are the chains of degree-2 tiles between dead ends and junctions.
+public class CorridorStats {
+    private final int openTiles;
+    private final int deadEnds;
+    private final int junctions;
+    private final int corridorTiles;
+    private final int turns;
+    private final int corridorCount;
+
+    private CorridorStats(int openTiles, int deadEnds, int junctions, int corridorTiles, int turns, int corridorCount) {
+        this.openTiles = openTiles;
+        this.deadEnds = deadEnds;
+        this.junctions = junctions;
+        this.corridorTiles = corridorTiles;
+        this.turns = turns;
+        this.corridorCount = corridorCount;
+    }
+
+    public static CorridorStats of(Maze maze) {
+        int openTiles = 0, deadEnds = 0, junctions = 0, corridorTiles = 0, turns = 0;
+        long nodeDegreeSum = 0;
+
+        for (int row = 0; row < maze.getRows(); row++) {
+            for (int col = 0; col < maze.getCols(); col++) {
+                if (maze.get(row, col) == MazeLogic.WALL) {
+                    continue;
+                }
+                openTiles++;
+
+                boolean up = !maze.isWall(row - 1, col);
+                boolean down = !maze.isWall(row + 1, col);
+                boolean left = !maze.isWall(row, col - 1);
+                boolean right = !maze.isWall(row, col + 1);
+                int degree = (up ? 1 : 0) + (down ? 1 : 0) + (left ? 1 : 0) + (right ? 1 : 0);
+
+                if (degree == 2) {
+                    corridorTiles++;
+                    if (up != down) {
+                        turns++;
+                    }
+                } else {
+                    nodeDegreeSum += degree;
+                    if (degree == 1) deadEnds++;
+                    if (degree >= 3) junctions++;
+                }
+            }
+        }
+
+        // Every corridor connects two non-corridor tiles, so each contributes two to the degree sum
+        return new CorridorStats(openTiles, deadEnds, junctions, corridorTiles, turns, (int) (nodeDegreeSum / 2));
+    }
+
+    public int getOpenTiles() {
+        return openTiles;
+    }
+
+    public int getDeadEnds() {
+        return deadEnds;
+    }
+
+    public int getJunctions() {
+        return junctions;
+    }
+
+    public double getAverageCorridorLength() {
+        return corridorCount == 0 ? 0 : (double) corridorTiles / corridorCount;
+    }
+
+    // Fraction of corridor tiles where the passage bends
+    public double getTurnRatio() {
+        return corridorTiles == 0 ? 0 : (double) turns / corridorTiles;
+    }
+}
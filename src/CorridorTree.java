@@ -0,0 +1,198 @@
+import java.util.Arrays;
+
+// The open tiles of a perfect maze form a tree, so the shortest path between two tiles is the
+// unique tree path. This precomputes a rooted tree with a heavy-path decomposition once per maze,
+// after which distance and next-step queries take O(log n) without searching at all.
+// Open tiles are renumbered densely so the arrays scale with floor area, not maze area.
+public class CorridorTree {
+
+    // Offsets for the four neighbouring tiles: Up, Down, Left, Right
+    private static final int[] DIR_ROW = {-1, 1, 0, 0};
+    private static final int[] DIR_COL = {0, 0, -1, 1};
+
+    private final int[] nodeOf;    // tile -> node, -1 for walls
+    private final int[] tileOf;    // node -> tile
+    private final int[] parent;    // -1 for the root of each component
+    private final int[] depth;
+    private final int[] head;      // topmost node of the heavy path containing the node
+    private final int[] position;  // heavy paths occupy consecutive positions, top first
+    private final int[] nodeAt;    // position -> node
+    private final int[] component;
+    private final boolean perfect;
+
+    private CorridorTree(int[] nodeOf, int[] tileOf, int[] parent, int[] depth, int[] head, int[] position,
+                         int[] nodeAt, int[] component, boolean perfect) {
+        this.nodeOf = nodeOf;
+        this.tileOf = tileOf;
+        this.parent = parent;
+        this.depth = depth;
+        this.head = head;
+        this.position = position;
+        this.nodeAt = nodeAt;
+        this.component = component;
+        this.perfect = perfect;
+    }
+
+    public static CorridorTree of(Maze maze) {
+        int rows = maze.getRows();
+        int cols = maze.getCols();
+        int[] nodeOf = new int[rows * cols];
+        Arrays.fill(nodeOf, -1);
+        int nodes = 0;
+        for (int tile = 0; tile < nodeOf.length; tile++) {
+            if (maze.get(tile) != MazeLogic.WALL) {
+                nodeOf[tile] = nodes++;
+            }
+        }
+        int[] tileOf = new int[nodes];
+        for (int tile = 0; tile < nodeOf.length; tile++) {
+            if (nodeOf[tile] >= 0) {
+                tileOf[nodeOf[tile]] = tile;
+            }
+        }
+
+        // Breadth-first search from the first tile of each component gives parents and depths
+        int[] parent = new int[nodes];
+        int[] depth = new int[nodes];
+        int[] component = new int[nodes];
+        int[] order = new int[nodes];
+        Arrays.fill(component, -1);
+        int components = 0;
+        long degreeSum = 0;
+        int tail = 0;
+        for (int root = 0; root < nodes; root++) {
+            if (component[root] >= 0) {
+                continue;
+            }
+            int head = tail;
+            parent[root] = -1;
+            component[root] = components;
+            order[tail++] = root;
+            while (head < tail) {
+                int node = order[head++];
+                int tile = tileOf[node];
+                int row = tile / cols;
+                int col = tile % cols;
+                for (int dir = 0; dir < 4; dir++) {
+                    int nextRow = row + DIR_ROW[dir];
+                    int nextCol = col + DIR_COL[dir];
+                    if (maze.isWall(nextRow, nextCol)) {
+                        continue;
+                    }
+                    degreeSum++;
+                    int next = nodeOf[nextRow * cols + nextCol];
+                    if (component[next] < 0) {
+                        component[next] = components;
+                        parent[next] = node;
+                        depth[next] = depth[node] + 1;
+                        order[tail++] = next;
+                    }
+                }
+            }
+            components++;
+        }
+        // A forest has exactly one edge fewer than nodes per component; any extra edge is a loop
+        boolean perfect = degreeSum / 2 == nodes - components;
+
+        // Subtree sizes bottom-up; each node's heavy child is its largest subtree
+        int[] size = new int[nodes];
+        int[] heavy = new int[nodes];
+        Arrays.fill(size, 1);
+        Arrays.fill(heavy, -1);
+        for (int i = nodes - 1; i > 0; i--) {
+            int node = order[i];
+            int up = parent[node];
+            if (up < 0) {
+                continue;
+            }
+            size[up] += size[node];
+            if (heavy[up] < 0 || size[node] > size[heavy[up]]) {
+                heavy[up] = node;
+            }
+        }
+
+        // Lay out heavy paths one after another; light children start new paths. Every node
+        // lands on its parent's path or a new one, so BFS order visits path heads before members.
+        int[] head = new int[nodes];
+        int[] position = new int[nodes];
+        int[] nodeAt = new int[nodes];
+        int next = 0;
+        for (int i = 0; i < nodes; i++) {
+            int start = order[i];
+            if (parent[start] >= 0 && heavy[parent[start]] == start) {
+                continue;
+            }
+            for (int node = start; node >= 0; node = heavy[node]) {
+                head[node] = start;
+                position[node] = next;
+                nodeAt[next++] = node;
+            }
+        }
+
+        return new CorridorTree(nodeOf, tileOf, parent, depth, head, position, nodeAt, component, perfect);
+    }
+
+    // Lowest common ancestor of two nodes in the same component
+    private int lca(int a, int b) {
+        while (head[a] != head[b]) {
+            if (depth[head[a]] > depth[head[b]]) {
+                a = parent[head[a]];
+            } else {
+                b = parent[head[b]];
+            }
+        }
+        return depth[a] < depth[b] ? a : b;
+    }
+
+    // Ancestor of node at the given depth, which must not exceed the node's own
+    private int ancestorAtDepth(int node, int targetDepth) {
+        while (depth[head[node]] > targetDepth) {
+            node = parent[head[node]];
+        }
+        return nodeAt[position[node] - (depth[node] - targetDepth)];
+    }
+
+    private boolean connected(int fromTile, int toTile) {
+        return nodeOf[fromTile] >= 0 && nodeOf[toTile] >= 0 && component[nodeOf[fromTile]] == component[nodeOf[toTile]];
+    }
+
+    // Walking distance in tiles between two tiles, or -1 if either is a wall or they aren't connected
+    public int getDistance(int fromTile, int toTile) {
+        if (!connected(fromTile, toTile)) {
+            return -1;
+        }
+        int from = nodeOf[fromTile];
+        int to = nodeOf[toTile];
+        return depth[from] + depth[to] - 2 * depth[lca(from, to)];
+    }
+
+    // Neighbouring tile of fromTile on the path to toTile, fromTile itself if they are equal,
+    // or -1 if there is no path
+    public int nextStep(int fromTile, int toTile) {
+        if (!connected(fromTile, toTile)) {
+            return -1;
+        }
+        int from = nodeOf[fromTile];
+        int to = nodeOf[toTile];
+        if (from == to) {
+            return fromTile;
+        }
+        if (lca(from, to) != from) {
+            return tileOf[parent[from]];
+        }
+        return tileOf[ancestorAtDepth(to, depth[from] + 1)];
+    }
+
+    // False if the maze has loops, in which case tree paths are not always the shortest
+    public boolean isPerfect() {
+        return perfect;
+    }
+
+    public int getNodeCount() {
+        return tileOf.length;
+    }
+
+    public long getSizeInBytes() {
+        return (long) Integer.BYTES * (nodeOf.length + 7L * tileOf.length);
+    }
+}
@@ -0,0 +1,334 @@
+import java.util.Arrays;
+
+// Incremental chase planner (D* Lite) for mazes whose walls change during play. Distances are
+// kept from a virtual root joined to the hero's tile, so the enemy's own moves only bump the key
+// modifier, and both the hero moving and a tile changing are a handful of edge updates. Only the
+// vertices whose distance actually changed and that lie in front of the enemy are re-expanded.
+// One instance per enemy; not thread-safe.
+public class DStarLite {
+
+    private static final int INFINITY = Integer.MAX_VALUE / 4;
+
+    // Offsets for the four neighbouring tiles: Up, Down, Left, Right
+    private static final int[] DIR_ROW = {-1, 1, 0, 0};
+    private static final int[] DIR_COL = {0, 0, -1, 1};
+
+    private Maze maze;
+    private int rows, cols, root;
+    private int startTile = -1, heroTile = -1;
+    private int keyModifier;
+
+    // g and rhs are only valid where mark == generation; anything else reads as unreached
+    private int[] g = new int[0];
+    private int[] rhs = new int[0];
+    private int[] mark = new int[0];
+    private int generation;
+
+    // Indexed binary heap ordered by (key1, key2); heapPos is -1 for vertices not queued
+    private int[] key1 = new int[0];
+    private int[] key2 = new int[0];
+    private int[] heap = new int[0];
+    private int[] heapPos = new int[0];
+    private int heapSize;
+
+    private int lastExpanded;
+    private long totalExpanded;
+
+    // Drops all planning state; the next query plans from scratch
+    public void reset() {
+        maze = null;
+    }
+
+    // Next tile for the enemy at fromTile chasing the hero at heroTile, fromTile if they share a
+    // tile, or -1 if the hero can't be reached
+    public int nextStep(Maze maze, int fromTile, int heroTile) {
+        lastExpanded = 0;
+        if (this.maze != maze || rows != maze.getRows() || cols != maze.getCols()) {
+            initialize(maze, fromTile, heroTile);
+        }
+        if (heroTile != this.heroTile) {
+            // The root's only edge moves from the old hero tile to the new one
+            int oldHero = this.heroTile;
+            this.heroTile = heroTile;
+            updateVertex(oldHero);
+            updateVertex(heroTile);
+        }
+        if (fromTile != startTile) {
+            keyModifier += heuristic(startTile, fromTile);
+            startTile = fromTile;
+        }
+        computeShortestPath();
+        totalExpanded += lastExpanded;
+
+        if (fromTile == heroTile && !isWall(fromTile)) {
+            return fromTile;
+        }
+        if (getG(fromTile) >= INFINITY) {
+            return -1;
+        }
+        int best = -1;
+        int bestCost = INFINITY;
+        int row = fromTile / cols;
+        int col = fromTile % cols;
+        for (int dir = 0; dir < 4; dir++) {
+            int nextRow = row + DIR_ROW[dir];
+            int nextCol = col + DIR_COL[dir];
+            if (maze.isWall(nextRow, nextCol)) {
+                continue;
+            }
+            int next = nextRow * cols + nextCol;
+            int cost = 1 + getG(next);
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = next;
+            }
+        }
+        return best;
+    }
+
+    // Tells the planner a tile has been set to a different type; call after changing the maze
+    public void tileChanged(int tile) {
+        if (maze == null) {
+            return;
+        }
+        // Toggling a tile changes the cost of every edge touching it
+        updateVertex(tile);
+        int row = tile / cols;
+        int col = tile % cols;
+        for (int dir = 0; dir < 4; dir++) {
+            int nextRow = row + DIR_ROW[dir];
+            int nextCol = col + DIR_COL[dir];
+            if (maze.isInside(nextRow, nextCol)) {
+                updateVertex(nextRow * cols + nextCol);
+            }
+        }
+    }
+
+    private void initialize(Maze maze, int fromTile, int heroTile) {
+        this.maze = maze;
+        rows = maze.getRows();
+        cols = maze.getCols();
+        int vertices = rows * cols + 1;
+        root = vertices - 1;
+        if (g.length < vertices) {
+            g = new int[vertices];
+            rhs = new int[vertices];
+            mark = new int[vertices];
+            key1 = new int[vertices];
+            key2 = new int[vertices];
+            heap = new int[vertices];
+            heapPos = new int[vertices];
+            generation = 0;
+        }
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(mark, 0);
+            generation = 1;
+        }
+        Arrays.fill(heapPos, 0, vertices, -1);
+        heapSize = 0;
+        keyModifier = 0;
+        startTile = fromTile;
+        this.heroTile = heroTile;
+
+        touch(root);
+        rhs[root] = 0;
+        insert(root);
+    }
+
+    private void computeShortestPath() {
+        while (heapSize > 0) {
+            int top = heap[0];
+            int startKey1 = Math.min(getG(startTile), getRhs(startTile)) + keyModifier;
+            int startKey2 = Math.min(getG(startTile), getRhs(startTile));
+            if (!keyLess(key1[top], key2[top], startKey1, startKey2) && getRhs(startTile) == getG(startTile)) {
+                break;
+            }
+            lastExpanded++;
+
+            int oldKey1 = key1[top];
+            int oldKey2 = key2[top];
+            int newKey2 = Math.min(getG(top), getRhs(top));
+            int newKey1 = newKey2 + heuristic(top) + keyModifier;
+            if (keyLess(oldKey1, oldKey2, newKey1, newKey2)) {
+                key1[top] = newKey1;
+                key2[top] = newKey2;
+                siftDown(0);
+            } else if (getG(top) > getRhs(top)) {
+                g[top] = rhs[top];
+                remove(top);
+                updateNeighbours(top);
+            } else {
+                g[top] = INFINITY;
+                updateVertex(top);
+                updateNeighbours(top);
+            }
+        }
+    }
+
+    private void updateNeighbours(int vertex) {
+        if (vertex == root) {
+            updateVertex(heroTile);
+            return;
+        }
+        int row = vertex / cols;
+        int col = vertex % cols;
+        for (int dir = 0; dir < 4; dir++) {
+            int nextRow = row + DIR_ROW[dir];
+            int nextCol = col + DIR_COL[dir];
+            if (!maze.isWall(nextRow, nextCol)) {
+                updateVertex(nextRow * cols + nextCol);
+            }
+        }
+        if (vertex == heroTile) {
+            updateVertex(root);
+        }
+    }
+
+    private void updateVertex(int vertex) {
+        if (vertex < 0) {
+            return;
+        }
+        touch(vertex);
+        if (vertex != root) {
+            int best = INFINITY;
+            if (!isWall(vertex)) {
+                if (vertex == heroTile) {
+                    best = getG(root);
+                }
+                int row = vertex / cols;
+                int col = vertex % cols;
+                for (int dir = 0; dir < 4; dir++) {
+                    int nextRow = row + DIR_ROW[dir];
+                    int nextCol = col + DIR_COL[dir];
+                    if (!maze.isWall(nextRow, nextCol)) {
+                        best = Math.min(best, 1 + getG(nextRow * cols + nextCol));
+                    }
+                }
+            }
+            rhs[vertex] = Math.min(best, INFINITY);
+        }
+        if (heapPos[vertex] >= 0) {
+            remove(vertex);
+        }
+        if (g[vertex] != rhs[vertex]) {
+            insert(vertex);
+        }
+    }
+
+    private boolean isWall(int tile) {
+        return maze.isWall(tile / cols, tile % cols);
+    }
+
+    // Lazily resets a vertex left over from an earlier plan
+    private void touch(int vertex) {
+        if (mark[vertex] != generation) {
+            mark[vertex] = generation;
+            g[vertex] = INFINITY;
+            rhs[vertex] = INFINITY;
+        }
+    }
+
+    private int getG(int vertex) {
+        return mark[vertex] == generation ? g[vertex] : INFINITY;
+    }
+
+    private int getRhs(int vertex) {
+        return mark[vertex] == generation ? rhs[vertex] : INFINITY;
+    }
+
+    // Manhattan distance from the enemy; the root sits on the hero's tile
+    private int heuristic(int vertex) {
+        return heuristic(startTile, vertex);
+    }
+
+    private int heuristic(int from, int to) {
+        if (to == root) {
+            to = heroTile;
+        }
+        return Math.abs(from / cols - to / cols) + Math.abs(from % cols - to % cols);
+    }
+
+    private static boolean keyLess(int a1, int a2, int b1, int b2) {
+        return a1 < b1 || (a1 == b1 && a2 < b2);
+    }
+
+    private void insert(int vertex) {
+        int k2 = Math.min(g[vertex], rhs[vertex]);
+        key1[vertex] = k2 + heuristic(vertex) + keyModifier;
+        key2[vertex] = k2;
+        heap[heapSize] = vertex;
+        heapPos[vertex] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private void remove(int vertex) {
+        int pos = heapPos[vertex];
+        heapPos[vertex] = -1;
+        heapSize--;
+        if (pos == heapSize) {
+            return;
+        }
+        int last = heap[heapSize];
+        heap[pos] = last;
+        heapPos[last] = pos;
+        siftUp(pos);
+        siftDown(heapPos[last]);
+    }
+
+    private boolean less(int a, int b) {
+        return keyLess(key1[a], key2[a], key1[b], key2[b]);
+    }
+
+    private void siftUp(int pos) {
+        int vertex = heap[pos];
+        while (pos > 0) {
+            int parentPos = (pos - 1) >>> 1;
+            int above = heap[parentPos];
+            if (!less(vertex, above)) {
+                break;
+            }
+            heap[pos] = above;
+            heapPos[above] = pos;
+            pos = parentPos;
+        }
+        heap[pos] = vertex;
+        heapPos[vertex] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int vertex = heap[pos];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && less(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!less(heap[child], vertex)) {
+                break;
+            }
+            heap[pos] = heap[child];
+            heapPos[heap[pos]] = pos;
+            pos = child;
+        }
+        heap[pos] = vertex;
+        heapPos[vertex] = pos;
+    }
+
+    // Walking distance from the enemy's last tile to the hero, or -1 if unreachable
+    public int getDistance() {
+        int distance = maze == null ? INFINITY : getG(startTile);
+        return distance >= INFINITY ? -1 : distance;
+    }
+
+    // Vertices expanded by the last query
+    public int getLastExpanded() {
+        return lastExpanded;
+    }
+
+    public long getTotalExpanded() {
+        return totalExpanded;
+    }
+}
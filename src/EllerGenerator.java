@@ -0,0 +1,25 @@
+import java.util.Random;
+
+// Eller's algorithm: builds the maze one row at a time, tracking only the set membership of
+// the current row. Working memory is proportional to the row width, not the maze area.
+public class EllerGenerator implements MazeGenerator {
+
+    @Override
+    public void carve(Maze maze, Random random) {
+        int rows = maze.getRows() / 2;
+        EllerRowStream stream = new EllerRowStream(maze.getCols() / 2, random);
+        for (int row = 0; row < rows; row++) {
+            stream.nextRow(maze, row * 2 + 1, row == rows - 1);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "Eller";
+    }
+
+    @Override
+    public long estimateWorkingBytes(int rows, int cols) {
+        return EllerRowStream.estimateWorkingBytes(cols);
+    }
+}
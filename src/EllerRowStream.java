@@ -0,0 +1,168 @@
+import java.util.Arrays;
+import java.util.Random;
+
+// Eller's algorithm as an endless stream of rows. Only the set membership of the current row
+// is kept, so memory is proportional to the row width no matter how many rows are produced.
+public class EllerRowStream {
+    private final int cols;
+    private final Random random;
+
+    // Set labels stay within [1, 2 * cols] because they are compacted after every row
+    private final int[] sets;
+    private final int[] ring;
+    private final int[] size;
+    private final int[] remap;
+    private final int[] members;
+    private final int[] chosen;
+    private final boolean[] goesDown;
+    private long rowsEmitted = 0;
+
+    public EllerRowStream(int cols, Random random) {
+        this.cols = cols;
+        this.random = random;
+        this.sets = new int[cols];
+        this.ring = new int[cols];
+        this.size = new int[cols * 2 + 1];
+        this.remap = new int[cols * 2 + 1];
+        this.members = new int[cols * 2 + 1];
+        this.chosen = new int[cols * 2 + 1];
+        this.goesDown = new boolean[cols * 2 + 1];
+    }
+
+    // Writes the next row of cells into tile row cellRow of the maze and the wall row beneath
+    // it into cellRow + 1. Both must be WALL on entry. The last row joins every remaining set
+    // and leaves the wall row solid.
+    public void nextRow(Maze maze, int cellRow, boolean lastRow) {
+        int wallRow = cellRow + 1;
+
+        // Cells that did not receive a passage from above start in their own set
+        int nextLabel = compactLabels() + 1;
+        for (int col = 0; col < cols; col++) {
+            if (sets[col] == 0) {
+                sets[col] = nextLabel++;
+            }
+            maze.set(cellRow, col * 2 + 1, MazeLogic.FLOOR);
+        }
+        linkRings();
+
+        // Randomly join adjacent cells of different sets; the last row joins them all
+        for (int col = 0; col < cols - 1; col++) {
+            if (sets[col] != sets[col + 1] && (lastRow || random.nextBoolean())) {
+                maze.set(cellRow, col * 2 + 2, MazeLogic.FLOOR);
+                merge(col, col + 1);
+            }
+        }
+        rowsEmitted++;
+
+        if (lastRow) {
+            return;
+        }
+
+        // Every set needs at least one passage down; pick a random fallback per set
+        for (int col = 0; col < cols; col++) {
+            int label = sets[col];
+            members[label] = 0;
+            goesDown[label] = false;
+        }
+        for (int col = 0; col < cols; col++) {
+            int label = sets[col];
+            if (random.nextInt(++members[label]) == 0) {
+                chosen[label] = col;
+            }
+        }
+        for (int col = 0; col < cols; col++) {
+            int label = sets[col];
+            if (random.nextBoolean()) {
+                goesDown[label] = true;
+                maze.set(wallRow, col * 2 + 1, MazeLogic.FLOOR);
+            } else {
+                sets[col] = -label; // Provisionally closed below
+            }
+        }
+        for (int col = 0; col < cols; col++) {
+            int label = Math.abs(sets[col]);
+            if (!goesDown[label] && chosen[label] == col) {
+                goesDown[label] = true;
+                sets[col] = label;
+                maze.set(wallRow, col * 2 + 1, MazeLogic.FLOOR);
+            }
+        }
+        for (int col = 0; col < cols; col++) {
+            if (sets[col] < 0) {
+                sets[col] = 0;
+            }
+        }
+    }
+
+    // Threads the columns of each set into a circular list so a merge only touches its members.
+    // Uses remap as scratch space for the first column seen of each label.
+    private void linkRings() {
+        Arrays.fill(remap, -1);
+        for (int col = 0; col < cols; col++) {
+            int label = sets[col];
+            int first = remap[label];
+            if (first < 0) {
+                remap[label] = col;
+                ring[col] = col;
+                size[label] = 1;
+            } else {
+                ring[col] = ring[first];
+                ring[first] = col;
+                size[label]++;
+            }
+        }
+    }
+
+    // Relabels the smaller of the two sets and splices their rings together
+    private void merge(int colA, int colB) {
+        if (size[sets[colA]] < size[sets[colB]]) {
+            int tmp = colA;
+            colA = colB;
+            colB = tmp;
+        }
+        int label = sets[colA];
+        size[label] += size[sets[colB]];
+        int col = colB;
+        do {
+            sets[col] = label;
+            col = ring[col];
+        } while (col != colB);
+
+        int tmp = ring[colA];
+        ring[colA] = ring[colB];
+        ring[colB] = tmp;
+    }
+
+    // Renumbers the labels in use to 1..k and returns k
+    private int compactLabels() {
+        Arrays.fill(remap, 0);
+        int count = 0;
+        for (int col = 0; col < cols; col++) {
+            int label = sets[col];
+            if (label == 0) {
+                continue;
+            }
+            if (remap[label] == 0) {
+                remap[label] = ++count;
+            }
+            sets[col] = remap[label];
+        }
+        return count;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getTileWidth() {
+        return cols * 2 + 1;
+    }
+
+    public long getRowsEmitted() {
+        return rowsEmitted;
+    }
+
+    public static long estimateWorkingBytes(int cols) {
+        return 25L * cols; // Row sets and rings plus per-label bookkeeping
+    }
+}
@@ -0,0 +1,74 @@
+import java.util.Random;
+
+// Sliding window over an endless Eller maze for the "endless descent" mode. The window keeps
+// a fixed number of tile rows; advancing drops rows from the top and streams new ones in at
+// the bottom, reusing the same tiles so memory stays constant however deep the hero goes.
+public class EndlessMaze {
+
+    // Same densities MazeLogic uses for generated levels
+    private static final double SPIKE_CHANCE = 0.05;
+    private static final double COIN_CHANCE = 0.20;
+
+    private final EllerRowStream stream;
+    private final Random random;
+    private final Maze maze;
+    private long tileRowsScrolled = 0;
+
+    public EndlessMaze(int cols, int windowRows, Random random) {
+        this.stream = new EllerRowStream(cols, random);
+        this.random = random;
+        this.maze = new Maze(windowRows * 2 + 1, cols * 2 + 1); // Row 0 stays a solid ceiling
+
+        for (int row = 1; row < maze.getRows(); row += 2) {
+            streamRow(row);
+        }
+        maze.indexItems();
+    }
+
+    // Scrolls the window down by the given number of tile rows, which must be even so cell
+    // rows stay on odd indices
+    public void advance(int tileRows) {
+        if (tileRows <= 0 || tileRows % 2 != 0 || tileRows >= maze.getRows()) {
+            throw new IllegalArgumentException("Cannot advance endless maze by " + tileRows + " rows");
+        }
+
+        maze.scrollUp(tileRows);
+        for (int row = maze.getRows() - tileRows; row < maze.getRows(); row += 2) {
+            streamRow(row);
+        }
+        maze.indexItems();
+        tileRowsScrolled += tileRows;
+    }
+
+    private void streamRow(int cellRow) {
+        stream.nextRow(maze, cellRow, false);
+        for (int col = 1; col < maze.getCols() - 1; col++) {
+            if (maze.get(cellRow, col) != MazeLogic.FLOOR) {
+                continue;
+            }
+            double roll = random.nextDouble();
+            if (roll < SPIKE_CHANCE) {
+                maze.set(cellRow, col, MazeLogic.SPIKE);
+            } else if (roll < SPIKE_CHANCE + COIN_CHANCE) {
+                maze.set(cellRow, col, MazeLogic.COIN);
+            }
+        }
+    }
+
+    public Maze getMaze() {
+        return maze;
+    }
+
+    public int getCols() {
+        return stream.getCols();
+    }
+
+    public int getWindowRows() {
+        return maze.getRows() / 2;
+    }
+
+    // How many maze cell rows have scrolled past the top of the window
+    public long getDepth() {
+        return tileRowsScrolled / 2;
+    }
+}
@@ -1,28 +1,31 @@
-import javax.swing.*;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Random;
-import java.util.Comparator;
-import java.util.PriorityQueue;
 
 
 public class Enemy {
+    private static final double LOST_SIGHT_SECONDS = 0.5; // How long a chase goes on without seeing the hero
     private double x, y;
+    private double previousX, previousY; // Position at the start of the current tick
     private int row, col;
-    private final int speed;
+    private final double speed; // Cells per second
+    private final int sightRange; // Tiles along each axis
     private boolean isChasing;
-    private int lostSightCounter;
+    private boolean seesHero;
+    private double lostSightTime; // Seconds spent chasing since the hero was last seen
     private int patrolTargetRow, patrolTargetCol;
     private final Random random;
 
     private boolean isMoving = false;
+    private double targetX, targetY;
+    private int moveRow, moveCol; // Direction of the step in progress
     private int prevDirectionX = 0;
     private int prevDirectionY = 0;
 
     private final MazePanel mazePanel;
+    private DStarLite planner; // Only used once the maze's walls start changing
     public enum EnemyAnimationState { IDLE, WALKING_FORWARD, WALKING_BACKWARD }
     private EnemyAnimationState currentState = EnemyAnimationState.IDLE;
     private final List<BufferedImage> enemyIdleFrames = new ArrayList<>();
@@ -34,18 +37,23 @@ public class Enemy {
     private long lastFrameTime = 0;
 
     public Enemy(int startX, int startY, BufferedImage enemyIdleSpriteSheet, BufferedImage walkForwardSpriteSheet,
-                 BufferedImage walkBackwardSpriteSheet, int speed, int sightRange, MazePanel mazePanel) {
+                 BufferedImage walkBackwardSpriteSheet, double speed, int sightRange, long seed, MazePanel mazePanel) {
         this.x = startX * MazePanel.CELL_SIZE;
         this.y = startY * MazePanel.CELL_SIZE;
+        this.previousX = x;
+        this.previousY = y;
         this.row = startY;
         this.col = startX;
         this.speed = speed;
+        if (sightRange < 0) {
+            throw new IllegalArgumentException("Sight range must not be negative: " + sightRange);
+        }
+        this.sightRange = sightRange;
         this.mazePanel = mazePanel;
         this.numWalkFrames = 4;
         this.numEnemyIdleFrames = 8;
         this.isChasing = false;
-        this.lostSightCounter = 0;
-        this.random = new Random();
+        this.random = new Random(seed); // Seeded so patrols replay identically
         loadAnimationFrames(enemyIdleSpriteSheet, Enemy.EnemyAnimationState.IDLE);
         loadAnimationFrames(walkForwardSpriteSheet, EnemyAnimationState.WALKING_FORWARD);
         loadAnimationFrames(walkBackwardSpriteSheet, EnemyAnimationState.WALKING_BACKWARD);
@@ -80,83 +88,85 @@ public class Enemy {
         }
     }
 
-    private void setRandomPatrolTarget(int[][] maze) {
+    private void setRandomPatrolTarget(Maze maze) {
         do {
-            patrolTargetRow = random.nextInt(maze.length);
-            patrolTargetCol = random.nextInt(maze[0].length);
-        } while (maze[patrolTargetRow][patrolTargetCol] != MazeLogic.FLOOR ||
+            patrolTargetRow = random.nextInt(maze.getRows());
+            patrolTargetCol = random.nextInt(maze.getCols());
+        } while (maze.get(patrolTargetRow, patrolTargetCol) != MazeLogic.FLOOR ||
                 (patrolTargetRow == row && patrolTargetCol == col));
     }
 
-    private boolean canSeeHero(Hero hero, int[][] maze) {
-        int enemyRow = this.row;
-        int enemyCol = this.col;
-        int playerRow = hero.getRow();
-        int playerCol = hero.getCol();
-
-        // Check if within sight range
-        if (Math.abs(enemyRow - playerRow) <= 7 &&
-                Math.abs(enemyCol - playerCol) <= 7) {
-
-            return isPathClear(enemyRow, enemyCol, playerRow, playerCol, maze);
-        }
-        return false;
+    private boolean canSeeHero(Maze maze, int heroTile) {
+        // Within sight range and no wall on the line between us
+        return mazePanel.getVisibilityCache().canSee(maze.index(row, col), heroTile, sightRange);
     }
 
-    private boolean isPathClear(int x0, int y0, int x1, int y1, int[][] maze) {
-        int dx = Math.abs(x1 - x0);
-        int dy = Math.abs(y1 - y0);
-        int sx = x0 < x1 ? 1 : -1;
-        int sy = y0 < y1 ? 1 : -1;
-        int err = (dx > dy ? dx : -dy) / 2;
-
-        while (true) {
-            // Check if the current cell is a wall
-            if (maze[x0][y0] == MazeLogic.WALL) {
-                return false;
-            }
-
-            if (x0 == x1 && y0 == y1) {
-                break;
-            }
-
-            int e2 = err;
-            if (e2 > -dx) {
-                err -= dy;
-                x0 += sx;
-            }
-            if (e2 < dy) {
-                err += dx;
-                y0 += sy;
-            }
+    // Per-frame work every enemy gets: sliding along the current step, hero collision and animation
+    public void update(Hero hero, double deltaTime) {
+        advanceMove(deltaTime);
+        if (isChasing && !seesHero) {
+            lostSightTime += deltaTime;
         }
-        return true;
-    }
-
-    public void update(Hero hero, int[][] maze) {
         if (checkPlayerCollision(hero)) {
             mazePanel.handlePlayerDeath();
             return;
         }
+        updateAnimation();
+    }
+
+    // An enemy only has a choice to make between steps
+    public boolean needsDecision() {
+        return !isMoving;
+    }
 
-        if (canSeeHero(hero, maze)) {
+    // What an enemy decided: the tile to step to (-1 to stay) and whether it just spotted the hero
+    public record Intent(int targetTile, boolean chaseStarted) {
+    }
+
+    // Sight check and chase or patrol decision. Reads only the maze and hero tile, which don't change
+    // while decisions run, and this enemy's own state, so different enemies can decide on different
+    // threads. The result is applied later with applyIntent.
+    public Intent decide(Maze maze, int heroTile) {
+        boolean chaseStarted = false;
+        int targetTile;
+        seesHero = canSeeHero(maze, heroTile);
+        if (seesHero) {
+            chaseStarted = !isChasing;
             isChasing = true;
-            lostSightCounter = 0;
-            chaseHero(hero, maze);
+            lostSightTime = 0;
+            targetTile = chaseHero(maze, heroTile);
+        } else if (isChasing && lostSightTime < LOST_SIGHT_SECONDS) {
+            targetTile = chaseHero(maze, heroTile);
         } else {
             if (isChasing) {
-                lostSightCounter++;
-                if (lostSightCounter >= 30) {
-                    isChasing = false;
-                    setRandomPatrolTarget(maze);
-                } else {
-                    chaseHero(hero, maze);
-                }
-            } else {
-                patrol(maze);
+                isChasing = false;
+                setRandomPatrolTarget(maze);
             }
+            targetTile = patrol(maze);
+        }
+        return new Intent(targetTile, chaseStarted);
+    }
+
+    // Starts the decided step; called on the simulation thread, one enemy at a time
+    public void applyIntent(Intent intent, Maze maze) {
+        if (intent.chaseStarted()) {
+            AudioPlayer.loopSound("chaseSound");
+        }
+        int targetTile = intent.targetTile();
+        if (targetTile < 0) {
+            return;
+        }
+        int targetRow = maze.rowOf(targetTile);
+        int targetCol = maze.colOf(targetTile);
+        if (targetRow < row) {
+            moveUp();
+        } else if (targetRow > row) {
+            moveDown();
+        } else if (targetCol < col) {
+            moveLeft();
+        } else if (targetCol > col) {
+            moveRight();
         }
-        updateAnimation();
     }
 
     private boolean checkPlayerCollision(Hero hero) {
@@ -173,180 +183,51 @@ public class Enemy {
         return new double[]{centerX, centerY, radius};
     }
 
-    private boolean canMove(int[][] maze, int nextRow, int nextCol) {
-        return nextRow >= 0 && nextRow < maze.length &&
-                nextCol >= 0 && nextCol < maze[0].length &&
-                (maze[nextRow][nextCol] == MazeLogic.FLOOR || maze[nextRow][nextCol] == MazeLogic.COIN || maze[nextRow][nextCol] == MazeLogic.SPIKE);
-    }
-
-    private void chaseHero(Hero hero, int[][] maze) {
-        AudioPlayer.loopSound("chaseSound");
-        System.out.println("Chasing " + isChasing);
-        // Find the shortest path to the hero using A*
-        List<Node> path = findPath(row, col, hero.getRow(), hero.getCol(), maze);
-
-        if (path != null && path.size() > 1) {
-            // Move one step along the calculated path
-            Node nextNode = path.get(1); // Index 0 is the current position
-            int targetRow = nextNode.getRow();
-            int targetCol = nextNode.getCol();
-
-            if (targetRow < row) {
-                moveUp();
-            } else if (targetRow > row) {
-                moveDown();
-            } else if (targetCol < col) {
-                moveLeft();
-            } else if (targetCol > col) {
-                moveRight();
-            }
-        }
+    // Same rule as every chase pathfinder: anything but a wall, items included. A step the planner
+    // hands out must never be refused here, or the enemy would stand still asking for it forever.
+    private boolean canMove(Maze maze, int nextRow, int nextCol) {
+        return !maze.isWall(nextRow, nextCol);
     }
 
-    private static class Node {
-        int row, col;
-        int gCost, hCost; // gCost: cost from start, hCost: heuristic cost to goal
-        Node parent;
-
-        Node(int row, int col) {
-            this.row = row;
-            this.col = col;
-        }
-
-        int getFCost() {
-            return gCost + hCost;
-        }
-
-        public int getRow() {
-            return row;
-        }
-
-        public int getCol() {
-            return col;
-        }
-    }
-
-    private List<Node> findPath(int startRow, int startCol, int goalRow, int goalCol, int[][] maze) {
-        Node[][] grid = new Node[maze.length][maze[0].length];
-        for (int i = 0; i < maze.length; i++) {
-            for (int j = 0; j < maze[0].length; j++) {
-                grid[i][j] = new Node(i, j);
-            }
-        }
-
-        Node startNode = grid[startRow][startCol];
-        Node goalNode = grid[goalRow][goalCol];
-
-        PriorityQueue<Node> openSet = new PriorityQueue<>(Comparator.comparingInt(Node::getFCost));
-        List<Node> closedSet = new ArrayList<>();
-
-        startNode.gCost = 0;
-        startNode.hCost = calculateHeuristic(startNode, goalNode);
-        openSet.add(startNode);
-
-        while (!openSet.isEmpty()) {
-            Node currentNode = openSet.poll();
-
-            if (currentNode == goalNode) {
-                return reconstructPath(currentNode);
-            }
-
-            closedSet.add(currentNode);
-
-            for (Node neighbor : getNeighbors(currentNode, maze, grid)) {
-                if (closedSet.contains(neighbor)) {
-                    continue;
-                }
-
-                int tentativeGCost = currentNode.gCost + 1; // Assuming cost of 1 per move
-
-                if (!openSet.contains(neighbor) || tentativeGCost < neighbor.gCost) {
-                    neighbor.parent = currentNode;
-                    neighbor.gCost = tentativeGCost;
-                    neighbor.hCost = calculateHeuristic(neighbor, goalNode);
-
-                    if (!openSet.contains(neighbor)) {
-                        openSet.add(neighbor);
-                    }
-                }
+    // Next tile towards the hero, or -1 if there is no way there
+    private int chaseHero(Maze maze, int heroTile) {
+        int fromTile = maze.index(row, col);
+        if (mazePanel.hasDynamicTiles()) {
+            // Repair the previous plan rather than searching again
+            if (planner == null) {
+                planner = new DStarLite();
             }
+            return planner.nextStep(maze, fromTile, heroTile);
         }
-
-        return null; // No path found
+        return mazePanel.getChaseStep(fromTile, heroTile);
     }
 
-    private List<Node> reconstructPath(Node endNode) {
-        List<Node> path = new ArrayList<>();
-        Node currentNode = endNode;
-
-        while (currentNode != null) {
-            path.add(currentNode);
-            currentNode = currentNode.parent;
+    // Next tile of a random walk, or -1 if boxed in
+    private int patrol(Maze maze) {
+        if (row == patrolTargetRow && col == patrolTargetCol) {
+            setRandomPatrolTarget(maze);
         }
 
-        Collections.reverse(path);
-        return path;
-    }
-
-    private List<Node> getNeighbors(Node node, int[][] maze, Node[][] grid) {
-        List<Node> neighbors = new ArrayList<>();
-        int[] dx = { -1, 1, 0, 0 };
-        int[] dy = { 0, 0, -1, 1 };
-
-        for (int i = 0; i < 4; i++) {
-            int newRow = node.row + dx[i];
-            int newCol = node.col + dy[i];
-
-            if (newRow >= 0 && newRow < maze.length &&
-                    newCol >= 0 && newCol < maze[0].length &&
-                    maze[newRow][newCol] != MazeLogic.WALL) {
-
-                neighbors.add(grid[newRow][newCol]);
-            }
+        List<int[]> validMoves = getValidMoves(maze);
+        if (validMoves.isEmpty()) {
+            return -1;
         }
-        return neighbors;
-    }
-
-    private int calculateHeuristic(Node a, Node b) {
-        // Manhattan distance heuristic
-        return Math.abs(a.row - b.row) + Math.abs(a.col - b.col);
-    }
-
-    private void patrol(int[][] maze) {
-        if (!isMoving) {
-            if (row == patrolTargetRow && col == patrolTargetCol) {
-                setRandomPatrolTarget(maze);
-            }
 
-            List<int[]> validMoves = getValidMoves(maze);
-
-            if (!validMoves.isEmpty()) {
-                // Choose a random valid move, avoiding immediate backtracking
-                int randomIndex;
-                do {
-                    randomIndex = random.nextInt(validMoves.size());
-                } while (validMoves.size() > 1 &&
-                        validMoves.get(randomIndex)[0] == -prevDirectionY &&
-                        validMoves.get(randomIndex)[1] == -prevDirectionX);
-
-                int[] newDirection = validMoves.get(randomIndex);
-                prevDirectionY = newDirection[0];
-                prevDirectionX = newDirection[1];
-
-                if (newDirection[0] == -1) {
-                    moveUp();
-                } else if (newDirection[0] == 1) {
-                    moveDown();
-                } else if (newDirection[1] == -1) {
-                    moveLeft();
-                } else if (newDirection[1] == 1) {
-                    moveRight();
-                }
-            }
-        }
+        // Choose a random valid move, avoiding immediate backtracking
+        int randomIndex;
+        do {
+            randomIndex = random.nextInt(validMoves.size());
+        } while (validMoves.size() > 1 &&
+                validMoves.get(randomIndex)[0] == -prevDirectionY &&
+                validMoves.get(randomIndex)[1] == -prevDirectionX);
+
+        int[] newDirection = validMoves.get(randomIndex);
+        prevDirectionY = newDirection[0];
+        prevDirectionX = newDirection[1];
+        return maze.index(row + newDirection[0], col + newDirection[1]);
     }
 
-    private List<int[]> getValidMoves(int[][] maze) {
+    private List<int[]> getValidMoves(Maze maze) {
         List<int[]> validMoves = new ArrayList<>();
         int[] directions = {-1, 0, 1, 0, 0, -1, 0, 1}; // Up, Down, Left, Right
 
@@ -363,83 +244,66 @@ public class Enemy {
     }
 
     private void moveUp() {
-        if (!isMoving && canMove(mazePanel.getMaze(), row - 1, col)) {
-            isMoving = true;
-            this.currentState = EnemyAnimationState.WALKING_BACKWARD;
-            double targetY = this.y - MazePanel.CELL_SIZE;
-
-            Timer timer = new Timer(10, e -> {
-                if (y > targetY) {
-                    y -= speed * 0.01 * 2;
-                } else {
-                    y = targetY;
-                    row--;
-                    isMoving = false;
-                    ((Timer) e.getSource()).stop();
-                }
-                mazePanel.repaint();
-            });
-            timer.start();
-        }
+        startMove(-1, 0, EnemyAnimationState.WALKING_BACKWARD);
     }
 
     private void moveDown() {
-        if (!isMoving && canMove(mazePanel.getMaze(), row + 1, col)) {
-            isMoving = true;
-            this.currentState = EnemyAnimationState.WALKING_FORWARD;
-            double targetY = this.y + MazePanel.CELL_SIZE;
-            Timer timer = new Timer(10, e -> {
-                if (y < targetY) {
-                    y += speed * 0.01 * 2;
-                } else {
-                    y = targetY;
-                    row++;
-                    isMoving = false;
-                    ((Timer) e.getSource()).stop();
-                }
-                mazePanel.repaint();
-            });
-            timer.start();
-        }
+        startMove(1, 0, EnemyAnimationState.WALKING_FORWARD);
     }
 
     private void moveLeft() {
-        if (!isMoving && canMove(mazePanel.getMaze(), row, col - 1)) {
-            isMoving = true;
-            this.currentState = EnemyAnimationState.WALKING_FORWARD;
-            double targetX = this.x - MazePanel.CELL_SIZE;
-            Timer timer = new Timer(10, e -> {
-                if (x > targetX) {
-                    x -= speed * 0.01 * 2;
-                } else {
-                    x = targetX;
-                    col--;
-                    isMoving = false;
-                    ((Timer) e.getSource()).stop();
-                }
-                mazePanel.repaint();
-            });
-            timer.start();
-        }
+        startMove(0, -1, EnemyAnimationState.WALKING_FORWARD);
     }
 
     private void moveRight() {
-        if (!isMoving && canMove(mazePanel.getMaze(), row, col + 1)) {
+        startMove(0, 1, EnemyAnimationState.WALKING_BACKWARD);
+    }
+
+    private void startMove(int dRow, int dCol, EnemyAnimationState state) {
+        if (!isMoving && canMove(mazePanel.getMaze(), row + dRow, col + dCol)) {
             isMoving = true;
-            this.currentState = EnemyAnimationState.WALKING_BACKWARD;
-            double targetX = this.x + MazePanel.CELL_SIZE;
-            Timer timer = new Timer(10, e -> {
-                if (x < targetX) {
-                    x += speed * 0.01 * 2;
-                } else {
-                    x = targetX;
-                    col++;
-                    isMoving = false;
-                    ((Timer) e.getSource()).stop();
-                }
-                mazePanel.repaint();
-            });
-            timer.start();
+            this.currentState = state;
+            moveRow = dRow;
+            moveCol = dCol;
+            targetX = this.x + dCol * MazePanel.CELL_SIZE;
+            targetY = this.y + dRow * MazePanel.CELL_SIZE;
+        }
+    }
+
+    // Slides the step in progress towards its target tile; the enemy's tile changes when it arrives
+    private void advanceMove(double deltaTime) {
+        if (!isMoving) {
+            return;
+        }
+        double distance = speed * MazePanel.CELL_SIZE * deltaTime;
+        double remaining = Math.abs(targetX - x) + Math.abs(targetY - y);
+        if (distance >= remaining) {
+            x = targetX;
+            y = targetY;
+            row += moveRow;
+            col += moveCol;
+            isMoving = false;
+        } else {
+            x += moveCol * distance;
+            y += moveRow * distance;
+        }
+    }
+
+    // Moves the enemy (and any step in progress) when the endless maze scrolls
+    public void shiftY(double dy, int rows) {
+        y += dy;
+        previousY += dy;
+        targetY += dy;
+        row -= rows;
+        patrolTargetRow -= rows;
+        if (planner != null) {
+            planner.reset(); // Every tile index has moved
+        }
+    }
+
+    public void tileChanged(int tile) {
+        if (planner != null) {
+            planner.tileChanged(tile);
         }
     }
 
@@ -459,10 +323,39 @@ public class Enemy {
         };
     }
 
+    public void savePosition() {
+        previousX = x;
+        previousY = y;
+    }
+
+    public double getPreviousX() {
+        return previousX;
+    }
+
+    public double getPreviousY() {
+        return previousY;
+    }
+
     public double getX() {
         return x;
     }
 
+    public int getRow() {
+        return row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    public int getSightRange() {
+        return sightRange;
+    }
+
     public double getY() {
         return y;
     }
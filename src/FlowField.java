@@ -0,0 +1,130 @@
+import java.util.Arrays;
+
+// Breadth-first distance field rooted at the hero's tile, shared by every chasing enemy. It is
+// rebuilt at most once per hero tile change, after which each chaser steps to its neighbour with
+// the lowest distance, so the cost of chasing no longer grows with the number of enemies.
+// Distances are only valid where mark == generation, so a rebuild doesn't clear the arrays.
+public class FlowField {
+
+    // Offsets for the four neighbouring tiles: Up, Down, Left, Right
+    private static final int[] DIR_ROW = {-1, 1, 0, 0};
+    private static final int[] DIR_COL = {0, 0, -1, 1};
+
+    private int[] distance = new int[0];
+    private int[] mark = new int[0];
+    private int[] queue = new int[0];
+    private int generation;
+    private int root = -1;
+    private int reached;
+    private int rebuilds;
+    private long lastBuildNanos;
+
+    // Rebuilds the field if the hero has moved to another tile since the last build
+    public void update(Maze maze, int heroTile) {
+        if (heroTile != root) {
+            build(maze, heroTile);
+        }
+    }
+
+    // Forces a rebuild on the next update, e.g. after the maze has scrolled or walls have changed
+    public void invalidate() {
+        root = -1;
+    }
+
+    // Neighbouring tile of from that is one step closer to the hero, from itself if it is the
+    // hero's tile, or -1 if the hero can't be reached from there
+    public int nextStep(Maze maze, int from) {
+        if (!isReached(from)) {
+            return -1;
+        }
+        if (distance[from] == 0) {
+            return from;
+        }
+        int cols = maze.getCols();
+        int row = from / cols;
+        int col = from % cols;
+        for (int dir = 0; dir < 4; dir++) {
+            int nextRow = row + DIR_ROW[dir];
+            int nextCol = col + DIR_COL[dir];
+            if (!maze.isInside(nextRow, nextCol)) {
+                continue;
+            }
+            int next = nextRow * cols + nextCol;
+            if (isReached(next) && distance[next] == distance[from] - 1) {
+                return next;
+            }
+        }
+        return -1;
+    }
+
+    // Walking distance in tiles from the given tile to the hero, or -1 if unreachable
+    public int getDistance(int tile) {
+        return isReached(tile) ? distance[tile] : -1;
+    }
+
+    private boolean isReached(int tile) {
+        return tile >= 0 && tile < mark.length && mark[tile] == generation && root >= 0;
+    }
+
+    private void build(Maze maze, int heroTile) {
+        long start = System.nanoTime();
+        int tiles = maze.getRows() * maze.getCols();
+        if (distance.length < tiles) {
+            distance = new int[tiles];
+            mark = new int[tiles];
+            queue = new int[tiles];
+            generation = 0;
+        }
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(mark, 0);
+            generation = 1;
+        }
+
+        root = heroTile;
+        reached = 0;
+        rebuilds++;
+        if (maze.isWall(maze.rowOf(heroTile), maze.colOf(heroTile))) {
+            lastBuildNanos = System.nanoTime() - start;
+            return;
+        }
+
+        int cols = maze.getCols();
+        int head = 0, tail = 0;
+        distance[heroTile] = 0;
+        mark[heroTile] = generation;
+        queue[tail++] = heroTile;
+        while (head < tail) {
+            int tile = queue[head++];
+            int row = tile / cols;
+            int col = tile % cols;
+            for (int dir = 0; dir < 4; dir++) {
+                int nextRow = row + DIR_ROW[dir];
+                int nextCol = col + DIR_COL[dir];
+                if (maze.isWall(nextRow, nextCol)) {
+                    continue;
+                }
+                int next = nextRow * cols + nextCol;
+                if (mark[next] != generation) {
+                    mark[next] = generation;
+                    distance[next] = distance[tile] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        reached = tail;
+        lastBuildNanos = System.nanoTime() - start;
+    }
+
+    public int getReachedTiles() {
+        return reached;
+    }
+
+    public int getRebuilds() {
+        return rebuilds;
+    }
+
+    public long getLastBuildNanos() {
+        return lastBuildNanos;
+    }
+}
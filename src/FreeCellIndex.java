@@ -0,0 +1,50 @@
+import java.util.Random;
+
+// Compact index of the maze cells (tiles at odd row and column, never the passages between them)
+// whose tile is still FLOOR and free for item placement, stored as flat tile indices. Items land
+// on cells, where the old rejection sampler put them. Sampling swap-removes the chosen entry, and
+// tiles that were filled some other way (e.g. by a coin trail) are dropped lazily when drawn, so
+// every entry is examined at most once and placement always terminates.
+public class FreeCellIndex {
+    private final Maze maze;
+    private final int[] cells;
+    private int size;
+
+    public FreeCellIndex(Maze maze) {
+        this.maze = maze;
+
+        int count = 0;
+        for (int row = 1; row < maze.getRows(); row += 2) {
+            for (int col = 1; col < maze.getCols(); col += 2) {
+                if (maze.get(row, col) == MazeLogic.FLOOR) count++;
+            }
+        }
+
+        this.cells = new int[count];
+        for (int row = 1; row < maze.getRows(); row += 2) {
+            for (int col = 1; col < maze.getCols(); col += 2) {
+                if (maze.get(row, col) == MazeLogic.FLOOR) {
+                    cells[size++] = maze.index(row, col);
+                }
+            }
+        }
+    }
+
+    // Removes and returns a random free tile, or -1 when none is left
+    public int take(Random random) {
+        while (size > 0) {
+            int i = random.nextInt(size);
+            int cell = cells[i];
+            cells[i] = cells[--size];
+            if (maze.get(cell) == MazeLogic.FLOOR) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    // Upper bound on the free tiles left; entries filled since indexing are only dropped when drawn
+    public int size() {
+        return size;
+    }
+}
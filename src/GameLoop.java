@@ -0,0 +1,231 @@
+import javax.swing.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// Fixed-timestep driver for a MazePanel. The simulation runs on its own thread in whole ticks of
+// TICK_SECONDS and publishes an immutable WorldSnapshot after each one. Painting happens on the
+// Swing thread at the target frame rate and only ever reads the latest snapshot, swapped in
+// through an AtomicReference, so neither side waits for the other: a slow paint doesn't hold back
+// physics or input, and a slow tick just means the same snapshot is drawn again. Moving sprites
+// are drawn part way between their positions at the start and end of the snapshot's tick.
+// A target of 0 paints as fast as the Swing thread allows and prints frame and tick rates and
+// costs once a second, for benchmarking. The default target comes from the maze.fps system
+// property, e.g. -Dmaze.fps=0.
+public final class GameLoop {
+
+    public static final int TICKS_PER_SECOND = 120;
+    public static final double TICK_SECONDS = 1.0 / TICKS_PER_SECOND;
+    private static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+    // After a stall (long GC, suspended laptop) the backlog is dropped instead of replayed all at once
+    private static final int MAX_CATCH_UP_TICKS = 8;
+    public static final int DEFAULT_TARGET_FPS = Integer.getInteger("maze.fps", 60);
+
+    private final MazePanel panel;
+    private final Timer frameTimer;
+    private final AtomicReference<WorldSnapshot> snapshot = new AtomicReference<>();
+    private int targetFps;
+    private volatile boolean running;
+    private Thread simulationThread;
+    private boolean framePending; // An uncapped frame is already queued on the Swing thread
+
+    // Simulation side, written only by the simulation thread
+    private volatile long totalTicks;
+    private volatile long droppedTicks;
+    private volatile long lastTickNanos;
+    private volatile double averageTickNanos;
+
+    // Render side, written only by the Swing thread
+    private long secondStart;
+    private long ticksAtSecondStart;
+    private int framesThisSecond;
+    private int framesPerSecond;
+    private int ticksPerSecond;
+    private long lastPaintNanos;
+    private double averagePaintNanos;
+
+    public GameLoop(MazePanel panel) {
+        this.panel = panel;
+        this.frameTimer = new Timer(0, e -> frame());
+        this.frameTimer.setCoalesce(true);
+        setTargetFps(DEFAULT_TARGET_FPS);
+    }
+
+    public void start() {
+        if (running) {
+            return;
+        }
+        if (simulationThread != null) {
+            try {
+                simulationThread.join(); // Let the last tick of the previous run finish
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        running = true;
+        snapshot.set(panel.snapshot(totalTicks, System.nanoTime()));
+        secondStart = System.nanoTime();
+        ticksAtSecondStart = totalTicks;
+        simulationThread = new Thread(this::simulate, "maze-simulation");
+        simulationThread.setDaemon(true);
+        simulationThread.start();
+        startFrames();
+    }
+
+    // Safe to call from the simulation thread, e.g. when a tick ends the game; the current tick
+    // finishes and no more run. The frame timer notices on its next event and stops itself.
+    public void stop() {
+        running = false;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void simulate() {
+        long nextTick = System.nanoTime();
+        while (running) {
+            long now = System.nanoTime();
+            if (now < nextTick) {
+                LockSupport.parkNanos(nextTick - now);
+                continue;
+            }
+            if (now - nextTick > MAX_CATCH_UP_TICKS * TICK_NANOS) {
+                long behind = (now - nextTick) / TICK_NANOS;
+                droppedTicks += behind;
+                nextTick += behind * TICK_NANOS;
+            }
+
+            panel.update(TICK_SECONDS);
+            lastTickNanos = System.nanoTime() - now;
+            averageTickNanos += (lastTickNanos - averageTickNanos) * 0.05;
+            totalTicks++;
+            // Stamped with when the tick was due rather than when it ran, so frames interpolate at
+            // an even pace
+            snapshot.set(panel.snapshot(totalTicks, nextTick));
+            nextTick += TICK_NANOS;
+        }
+    }
+
+    // Latest published tick; never null once the loop has started
+    public WorldSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    // How far the frame being painted now is into the tick after the snapshot's
+    public double getRenderAlpha(WorldSnapshot snapshot) {
+        double alpha = (double) (System.nanoTime() - snapshot.tickNanos()) / TICK_NANOS;
+        return Math.max(0, Math.min(1, alpha));
+    }
+
+    // Frames per second to paint; 0 removes the cap. The simulation rate is unaffected.
+    public void setTargetFps(int fps) {
+        if (fps < 0) {
+            throw new IllegalArgumentException("Target FPS must not be negative: " + fps);
+        }
+        frameTimer.stop();
+        targetFps = fps;
+        frameTimer.setDelay(fps == 0 ? 0 : Math.max(1, 1000 / fps));
+        if (running) {
+            startFrames();
+        }
+    }
+
+    public int getTargetFps() {
+        return targetFps;
+    }
+
+    public boolean isUncapped() {
+        return targetFps == 0;
+    }
+
+    private void startFrames() {
+        if (isUncapped()) {
+            queueFrame();
+        } else {
+            frameTimer.start();
+        }
+    }
+
+    private void queueFrame() {
+        if (!framePending) {
+            framePending = true;
+            SwingUtilities.invokeLater(() -> {
+                framePending = false;
+                frame();
+            });
+        }
+    }
+
+    private void frame() {
+        if (!running) {
+            frameTimer.stop();
+            return;
+        }
+        long now = System.nanoTime();
+        framesThisSecond++;
+        if (now - secondStart >= 1_000_000_000L) {
+            long ticks = totalTicks;
+            framesPerSecond = framesThisSecond;
+            ticksPerSecond = (int) (ticks - ticksAtSecondStart);
+            framesThisSecond = 0;
+            ticksAtSecondStart = ticks;
+            secondStart = now;
+            if (isUncapped()) {
+                StaticTileLayer tiles = panel.getStaticTileLayer();
+                System.out.printf("FPS: %d, ticks/s: %d, tick %.3f ms, paint %.3f ms, dropped ticks: %d, "
+                                + "tile cache %.1f%% hits, %d chunks, %.1f MB%n",
+                        framesPerSecond, ticksPerSecond, averageTickNanos / 1e6, averagePaintNanos / 1e6,
+                        droppedTicks, tiles.getHitRate() * 100, tiles.getCachedChunks(),
+                        tiles.getSizeInBytes() / 1048576.0);
+            }
+        }
+
+        if (isUncapped()) {
+            // Paint now rather than waiting for the repaint manager, then queue the next frame
+            // behind any pending input
+            panel.paintImmediately(0, 0, panel.getWidth(), panel.getHeight());
+            queueFrame();
+        } else {
+            panel.repaint();
+        }
+    }
+
+    // Called by the panel with the time its paintComponent took
+    public void recordPaint(long nanos) {
+        lastPaintNanos = nanos;
+        averagePaintNanos += (nanos - averagePaintNanos) * 0.05;
+    }
+
+    public int getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    public int getTicksPerSecond() {
+        return ticksPerSecond;
+    }
+
+    public long getTotalTicks() {
+        return totalTicks;
+    }
+
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+
+    public long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
+    public double getAverageTickNanos() {
+        return averageTickNanos;
+    }
+
+    public long getLastPaintNanos() {
+        return lastPaintNanos;
+    }
+
+    public double getAveragePaintNanos() {
+        return averagePaintNanos;
+    }
+}
@@ -1,6 +1,9 @@
 import javax.swing.*;
 import java.awt.*;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
 
 public class GameMenu extends JPanel {
     private final JFrame frame;
@@ -9,6 +12,8 @@ public class GameMenu extends JPanel {
     private static final int SCREEN_HEIGHT = 800; // Desired screen height
     private final MainMenuPanel mainMenu;
     private boolean mainMenuShown = false; // Flag to track if shown
+    // Recently played mazes, kept for the whole session
+    private static final MazeCache MAZE_CACHE = new MazeCache(64L * 1024 * 1024);
 
     public GameMenu(JFrame frame) {
         this.frame = frame;
@@ -54,9 +59,41 @@ public class GameMenu extends JPanel {
 
     public void startGame(int level) {
         // This method is now called from the SetLevel panel
+        startGame(level, MazeLogic.dailySeed(level));
+    }
+
+    public void startGame(int level, long seed) {
+        Maze maze = loadCampaignLevel(level);
+        if (maze == null) {
+            maze = MAZE_CACHE.getOrGenerate(seed, 10, 20, level); // Create the maze here
+        } else {
+            seed = maze.getSeed();
+        }
+        showMazePanel(new MazePanel(maze, maze.getRows() / 2, maze.getCols() / 2, level, seed)); // Pass maze data
+    }
+
+    // Pre-built level shipped in the campaign directory, or null to generate one
+    private Maze loadCampaignLevel(int level) {
+        Path path = MazeFile.campaignLevel(level);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            return MazeFile.read(path);
+        } catch (IOException e) {
+            System.err.println("Error loading campaign level: " + path + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void startEndlessGame() {
+        long seed = new Random().nextLong();
+        EndlessMaze endlessMaze = new EndlessMaze(20, 10, new Random(seed));
+        showMazePanel(new MazePanel(endlessMaze, 0, seed));
+    }
+
+    private void showMazePanel(MazePanel mazePanel) {
         frame.remove(this);
-        int[][] maze = MazeLogic.generateMaze(10, 20); // Create the maze here
-        MazePanel mazePanel = new MazePanel(maze, 10, 20, level); // Pass maze data
         frame.add(mazePanel);
         frame.pack();
         frame.setLocationRelativeTo(null);
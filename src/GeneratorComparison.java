@@ -0,0 +1,40 @@
+import java.util.Random;
+
+// Headless side-by-side comparison of the maze generators.
+// Usage: java GeneratorComparison [rows] [cols] [runs]
+public class GeneratorComparison {
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int cols = args.length > 1 ? Integer.parseInt(args[1]) : rows;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        long cells = (long) rows * cols;
+
+        System.out.printf("%d x %d cells, %d runs per generator%n", rows, cols, runs);
+        System.out.printf("%-12s %10s %14s %12s %10s %10s %10s %8s%n", "Generator", "ms/maze",
+                "cells/s", "work bytes", "dead ends", "junctions", "avg corr", "turns");
+
+        for (MazeGenerator generator : MazeGenerator.all()) {
+            Random random = new Random(42);
+            Maze maze = null;
+            long totalNanos = 0;
+
+            // One warm-up run so the JIT has compiled the carve loop
+            for (int run = 0; run <= runs; run++) {
+                maze = new Maze(rows * 2 + 1, cols * 2 + 1);
+                long start = System.nanoTime();
+                generator.carve(maze, random);
+                if (run > 0) {
+                    totalNanos += System.nanoTime() - start;
+                }
+            }
+
+            CorridorStats stats = CorridorStats.of(maze);
+            double nanosPerMaze = (double) totalNanos / runs;
+            System.out.printf("%-12s %10.1f %14.0f %12d %10d %10d %10.2f %8.2f%n", generator.getName(),
+                    nanosPerMaze / 1_000_000.0, cells * 1_000_000_000.0 / nanosPerMaze,
+                    generator.estimateWorkingBytes(rows, cols), stats.getDeadEnds(), stats.getJunctions(),
+                    stats.getAverageCorridorLength(), stats.getTurnRatio());
+        }
+    }
+}
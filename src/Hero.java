@@ -4,9 +4,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Hero {
-    private int row, col;
     double x;
     double y;
+    private double previousX, previousY; // Position at the start of the current tick
     final double speed;
     private int health;
     private boolean hasKey = false;
@@ -34,6 +34,8 @@ public class Hero {
         this.mazePanel = mazePanel;
         this.x = startX;
         this.y = startY;
+        this.previousX = startX;
+        this.previousY = startY;
         this.speed = speed;
         this.health = 100;
         this.numIdleFrames = 8;
@@ -161,12 +163,32 @@ public class Hero {
         return y;
     }
 
+    public void savePosition() {
+        previousX = x;
+        previousY = y;
+    }
+
+    public double getPreviousX() {
+        return previousX;
+    }
+
+    public double getPreviousY() {
+        return previousY;
+    }
+
+    // Moves the hero when the endless maze scrolls
+    public void shiftY(double dy) {
+        y += dy;
+        previousY += dy;
+    }
+
+    // Maze tile the centre of the hero is in
     public int getRow() {
-        return row;
+        return (int) ((y + MazePanel.CELL_SIZE / 2.0) / MazePanel.CELL_SIZE);
     }
 
     public int getCol() {
-        return col;
+        return (int) ((x + MazePanel.CELL_SIZE / 2.0) / MazePanel.CELL_SIZE);
     }
 
     public int getHealth() {
@@ -0,0 +1,490 @@
+import java.util.Arrays;
+
+// Hierarchical A* (HPA*) for large mazes and mazes with loops. The grid is split into square
+// clusters; every run of open tiles crossing a cluster border gets one entrance (a tile on each
+// side), and entrances in the same cluster are linked by their in-cluster walking distance. A
+// query searches this small abstract graph, then refines only the leg inside the start cluster
+// to find the first step. Paths may be slightly longer than optimal because each border run is
+// crossed at its middle. Built once per maze; queries are not thread-safe, so each thread should
+// use its own withOwnScratch() copy.
+public class HierarchicalPathFinder {
+
+    public static final int DEFAULT_CLUSTER_SIZE = 32;
+
+    // Offsets for the four neighbouring tiles: Up, Down, Left, Right
+    private static final int[] DIR_ROW = {-1, 1, 0, 0};
+    private static final int[] DIR_COL = {0, 0, -1, 1};
+
+    private final Maze maze;
+    private final int clusterSize;
+    private final int clustersAcross;
+
+    // Abstract graph in compressed rows: edges of node n are edgeStart[n] until edgeStart[n + 1]
+    private final int[] nodeTile;
+    private final int[] edgeStart;
+    private final int[] edgeTarget;
+    private final int[] edgeCost;
+    // Nodes of cluster c are clusterNodes[clusterStart[c]] until clusterNodes[clusterStart[c + 1]]
+    private final int[] clusterStart;
+    private final int[] clusterNodes;
+
+    // Per-query scratch; abstract node ids nodeCount and nodeCount + 1 are the start and goal
+    private final int startNode, goalNode;
+    private final int[] gCost, parent, mark;
+    private long[] open = new long[64];
+    private int generation;
+    private final LocalSearch startSearch, goalSearch;
+    private int[] route = new int[64];
+    private int lastPathLength = -1;
+    private int lastExpanded;
+
+    private HierarchicalPathFinder(Maze maze, int clusterSize, int[] nodeTile, int[] edgeStart, int[] edgeTarget,
+                                   int[] edgeCost, int[] clusterStart, int[] clusterNodes) {
+        this.maze = maze;
+        this.clusterSize = clusterSize;
+        this.clustersAcross = (maze.getCols() + clusterSize - 1) / clusterSize;
+        this.nodeTile = nodeTile;
+        this.edgeStart = edgeStart;
+        this.edgeTarget = edgeTarget;
+        this.edgeCost = edgeCost;
+        this.clusterStart = clusterStart;
+        this.clusterNodes = clusterNodes;
+        this.startNode = nodeTile.length;
+        this.goalNode = nodeTile.length + 1;
+        this.gCost = new int[nodeTile.length + 2];
+        this.parent = new int[nodeTile.length + 2];
+        this.mark = new int[nodeTile.length + 2];
+        this.startSearch = new LocalSearch(clusterSize);
+        this.goalSearch = new LocalSearch(clusterSize);
+    }
+
+    // Another query engine over the same abstract graph, for use on a different thread
+    public HierarchicalPathFinder withOwnScratch() {
+        return new HierarchicalPathFinder(maze, clusterSize, nodeTile, edgeStart, edgeTarget, edgeCost,
+                clusterStart, clusterNodes);
+    }
+
+    public static HierarchicalPathFinder of(Maze maze) {
+        return of(maze, DEFAULT_CLUSTER_SIZE);
+    }
+
+    public static HierarchicalPathFinder of(Maze maze, int clusterSize) {
+        int rows = maze.getRows();
+        int cols = maze.getCols();
+        int clustersDown = (rows + clusterSize - 1) / clusterSize;
+        int clustersAcross = (cols + clusterSize - 1) / clusterSize;
+        int clusters = clustersDown * clustersAcross;
+
+        // Entrances: one pair of tiles at the middle of each open run along every cluster border
+        int[] nodeOfTile = new int[rows * cols];
+        Arrays.fill(nodeOfTile, -1);
+        IntList tiles = new IntList();
+        IntList edges = new IntList(); // from, to, cost triples
+        for (int border = clusterSize; border < cols; border += clusterSize) {
+            for (int top = 0; top < rows; top += clusterSize) {
+                int bottom = Math.min(top + clusterSize, rows);
+                int runStart = -1;
+                for (int row = top; row <= bottom; row++) {
+                    boolean open = row < bottom && !maze.isWall(row, border - 1) && !maze.isWall(row, border);
+                    if (open && runStart < 0) {
+                        runStart = row;
+                    } else if (!open && runStart >= 0) {
+                        int middle = (runStart + row - 1) / 2;
+                        addEntrance(maze.index(middle, border - 1), maze.index(middle, border), nodeOfTile, tiles, edges);
+                        runStart = -1;
+                    }
+                }
+            }
+        }
+        for (int border = clusterSize; border < rows; border += clusterSize) {
+            for (int left = 0; left < cols; left += clusterSize) {
+                int right = Math.min(left + clusterSize, cols);
+                int runStart = -1;
+                for (int col = left; col <= right; col++) {
+                    boolean open = col < right && !maze.isWall(border - 1, col) && !maze.isWall(border, col);
+                    if (open && runStart < 0) {
+                        runStart = col;
+                    } else if (!open && runStart >= 0) {
+                        int middle = (runStart + col - 1) / 2;
+                        addEntrance(maze.index(border - 1, middle), maze.index(border, middle), nodeOfTile, tiles, edges);
+                        runStart = -1;
+                    }
+                }
+            }
+        }
+        int[] nodeTile = tiles.toArray();
+
+        // Group nodes by cluster
+        int[] clusterStart = new int[clusters + 1];
+        for (int tile : nodeTile) {
+            clusterStart[clusterOf(tile, cols, clusterSize, clustersAcross) + 1]++;
+        }
+        for (int c = 0; c < clusters; c++) {
+            clusterStart[c + 1] += clusterStart[c];
+        }
+        int[] clusterNodes = new int[nodeTile.length];
+        int[] fill = Arrays.copyOf(clusterStart, clusters);
+        for (int node = 0; node < nodeTile.length; node++) {
+            clusterNodes[fill[clusterOf(nodeTile[node], cols, clusterSize, clustersAcross)]++] = node;
+        }
+
+        // Intra-cluster edges: one bounded BFS from every entrance in the cluster
+        LocalSearch search = new LocalSearch(clusterSize);
+        for (int c = 0; c < clusters; c++) {
+            for (int i = clusterStart[c]; i < clusterStart[c + 1]; i++) {
+                int from = clusterNodes[i];
+                search.run(maze, nodeTile[from], clusterSize);
+                for (int j = clusterStart[c]; j < clusterStart[c + 1]; j++) {
+                    int to = clusterNodes[j];
+                    int distance = search.distanceTo(nodeTile[to]);
+                    if (to != from && distance > 0) {
+                        edges.add(from);
+                        edges.add(to);
+                        edges.add(distance);
+                    }
+                }
+            }
+        }
+
+        // Compress the edge triples into rows
+        int nodes = nodeTile.length;
+        int edgeCount = edges.size() / 3;
+        int[] edgeStart = new int[nodes + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            edgeStart[edges.get(3 * e) + 1]++;
+        }
+        for (int n = 0; n < nodes; n++) {
+            edgeStart[n + 1] += edgeStart[n];
+        }
+        int[] edgeTarget = new int[edgeCount];
+        int[] edgeCost = new int[edgeCount];
+        int[] next = Arrays.copyOf(edgeStart, nodes);
+        for (int e = 0; e < edgeCount; e++) {
+            int slot = next[edges.get(3 * e)]++;
+            edgeTarget[slot] = edges.get(3 * e + 1);
+            edgeCost[slot] = edges.get(3 * e + 2);
+        }
+
+        return new HierarchicalPathFinder(maze, clusterSize, nodeTile, edgeStart, edgeTarget, edgeCost,
+                clusterStart, clusterNodes);
+    }
+
+    private static void addEntrance(int tileA, int tileB, int[] nodeOfTile, IntList tiles, IntList edges) {
+        int a = nodeFor(tileA, nodeOfTile, tiles);
+        int b = nodeFor(tileB, nodeOfTile, tiles);
+        edges.add(a);
+        edges.add(b);
+        edges.add(1);
+        edges.add(b);
+        edges.add(a);
+        edges.add(1);
+    }
+
+    private static int nodeFor(int tile, int[] nodeOfTile, IntList tiles) {
+        if (nodeOfTile[tile] < 0) {
+            nodeOfTile[tile] = tiles.size();
+            tiles.add(tile);
+        }
+        return nodeOfTile[tile];
+    }
+
+    private static int clusterOf(int tile, int cols, int clusterSize, int clustersAcross) {
+        return (tile / cols / clusterSize) * clustersAcross + (tile % cols) / clusterSize;
+    }
+
+    // Neighbouring tile of fromTile on the way to toTile, fromTile itself if they are equal,
+    // or -1 if there is no path
+    public int nextStep(int fromTile, int toTile) {
+        lastPathLength = -1;
+        lastExpanded = 0;
+        int cols = maze.getCols();
+        if (maze.isWall(fromTile / cols, fromTile % cols) || maze.isWall(toTile / cols, toTile % cols)) {
+            return -1;
+        }
+        if (fromTile == toTile) {
+            lastPathLength = 0;
+            return fromTile;
+        }
+
+        int startCluster = clusterOf(fromTile, cols, clusterSize, clustersAcross);
+        int goalCluster = clusterOf(toTile, cols, clusterSize, clustersAcross);
+        startSearch.run(maze, fromTile, clusterSize);
+        goalSearch.run(maze, toTile, clusterSize);
+
+        if (!search(startCluster, goalCluster, toTile)) {
+            return -1;
+        }
+
+        // Walk back from the goal to find the first abstract waypoint that isn't the start tile
+        int length = 0;
+        for (int node = goalNode; node != startNode; node = parent[node]) {
+            if (length == route.length) {
+                route = Arrays.copyOf(route, length * 2);
+            }
+            route[length++] = node;
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            int tile = route[i] == goalNode ? toTile : nodeTile[route[i]];
+            if (tile == fromTile) {
+                continue;
+            }
+            if (startSearch.distanceTo(tile) < 0) {
+                // Only a border crossing can leave the start cluster, and that is a single step
+                return tile;
+            }
+            return startSearch.firstStepTo(tile);
+        }
+        return -1;
+    }
+
+    // A* over the abstract graph from the start's cluster entrances to the goal
+    private boolean search(int startCluster, int goalCluster, int toTile) {
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(mark, 0);
+            generation = 1;
+        }
+        int openSize = 0;
+        gCost[startNode] = 0;
+        mark[startNode] = generation;
+        openSize = push(openSize, startNode, heuristic(startNode, toTile));
+
+        while (openSize > 0) {
+            long top = open[0];
+            openSize = pop(openSize);
+            int node = (int) top;
+            int f = (int) (top >>> 32);
+            if (f - heuristic(node, toTile) > gCost[node]) {
+                continue; // Stale entry left behind by a cheaper push
+            }
+            if (node == goalNode) {
+                lastPathLength = gCost[goalNode];
+                return true;
+            }
+            lastExpanded++;
+
+            if (node == startNode) {
+                for (int i = clusterStart[startCluster]; i < clusterStart[startCluster + 1]; i++) {
+                    int next = clusterNodes[i];
+                    openSize = relax(openSize, node, next, startSearch.distanceTo(nodeTile[next]), toTile);
+                }
+                if (startCluster == goalCluster) {
+                    openSize = relax(openSize, node, goalNode, startSearch.distanceTo(toTile), toTile);
+                }
+                continue;
+            }
+            for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++) {
+                openSize = relax(openSize, node, edgeTarget[e], edgeCost[e], toTile);
+            }
+            if (clusterOf(nodeTile[node], maze.getCols(), clusterSize, clustersAcross) == goalCluster) {
+                openSize = relax(openSize, node, goalNode, goalSearch.distanceTo(nodeTile[node]), toTile);
+            }
+        }
+        return false;
+    }
+
+    private int relax(int openSize, int from, int to, int cost, int toTile) {
+        if (cost < 0) {
+            return openSize;
+        }
+        int g = gCost[from] + cost;
+        if (mark[to] != generation || g < gCost[to]) {
+            mark[to] = generation;
+            gCost[to] = g;
+            parent[to] = from;
+            openSize = push(openSize, to, g + heuristic(to, toTile));
+        }
+        return openSize;
+    }
+
+    private int heuristic(int node, int toTile) {
+        if (node == goalNode) {
+            return 0;
+        }
+        int tile = node == startNode ? startSearch.getOrigin() : nodeTile[node];
+        int cols = maze.getCols();
+        // Manhattan distance heuristic
+        return Math.abs(tile / cols - toTile / cols) + Math.abs(tile % cols - toTile % cols);
+    }
+
+    // Binary heap of (f << 32 | node); stale entries are skipped on pop instead of decreasing keys
+    private int push(int openSize, int node, int f) {
+        if (openSize == open.length) {
+            open = Arrays.copyOf(open, openSize * 2);
+        }
+        long entry = ((long) f << 32) | node;
+        int pos = openSize;
+        while (pos > 0) {
+            int up = (pos - 1) >>> 1;
+            if (open[up] <= entry) {
+                break;
+            }
+            open[pos] = open[up];
+            pos = up;
+        }
+        open[pos] = entry;
+        return openSize + 1;
+    }
+
+    private int pop(int openSize) {
+        long last = open[--openSize];
+        int pos = 0;
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= openSize) {
+                break;
+            }
+            if (child + 1 < openSize && open[child + 1] < open[child]) {
+                child++;
+            }
+            if (open[child] >= last) {
+                break;
+            }
+            open[pos] = open[child];
+            pos = child;
+        }
+        open[pos] = last;
+        return openSize;
+    }
+
+    // Abstract path cost of the last query in tiles, or -1 if it failed
+    public int getLastPathLength() {
+        return lastPathLength;
+    }
+
+    // Abstract nodes expanded by the last query
+    public int getLastExpanded() {
+        return lastExpanded;
+    }
+
+    public int getNodeCount() {
+        return nodeTile.length;
+    }
+
+    public int getEdgeCount() {
+        return edgeTarget.length;
+    }
+
+    public int getClusterSize() {
+        return clusterSize;
+    }
+
+    public long getSizeInBytes() {
+        return (long) Integer.BYTES * (4L * nodeTile.length + 2L * edgeTarget.length + clusterStart.length
+                + clusterNodes.length);
+    }
+
+    // Breadth-first search confined to the cluster containing its origin tile
+    private static class LocalSearch {
+        private final int[] distance, parent, mark, queue;
+        private int generation;
+        private int originTile, top, left, width, height, cols;
+
+        LocalSearch(int clusterSize) {
+            int area = clusterSize * clusterSize;
+            distance = new int[area];
+            parent = new int[area];
+            mark = new int[area];
+            queue = new int[area];
+        }
+
+        void run(Maze maze, int origin, int clusterSize) {
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(mark, 0);
+                generation = 1;
+            }
+            cols = maze.getCols();
+            originTile = origin;
+            top = origin / cols / clusterSize * clusterSize;
+            left = origin % cols / clusterSize * clusterSize;
+            height = Math.min(clusterSize, maze.getRows() - top);
+            width = Math.min(clusterSize, cols - left);
+
+            int start = local(origin);
+            distance[start] = 0;
+            parent[start] = start;
+            mark[start] = generation;
+            int head = 0, tail = 0;
+            queue[tail++] = start;
+            while (head < tail) {
+                int cell = queue[head++];
+                int row = cell / width;
+                int col = cell % width;
+                for (int dir = 0; dir < 4; dir++) {
+                    int nextRow = row + DIR_ROW[dir];
+                    int nextCol = col + DIR_COL[dir];
+                    if (nextRow < 0 || nextRow >= height || nextCol < 0 || nextCol >= width
+                            || maze.isWall(top + nextRow, left + nextCol)) {
+                        continue;
+                    }
+                    int next = nextRow * width + nextCol;
+                    if (mark[next] != generation) {
+                        mark[next] = generation;
+                        distance[next] = distance[cell] + 1;
+                        parent[next] = cell;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+
+        private int local(int tile) {
+            return (tile / cols - top) * width + (tile % cols - left);
+        }
+
+        private boolean contains(int tile) {
+            int row = tile / cols - top;
+            int col = tile % cols - left;
+            return row >= 0 && row < height && col >= 0 && col < width;
+        }
+
+        // In-cluster walking distance from the origin, or -1 if outside the cluster or unreachable
+        int distanceTo(int tile) {
+            if (!contains(tile)) {
+                return -1;
+            }
+            int cell = local(tile);
+            return mark[cell] == generation ? distance[cell] : -1;
+        }
+
+        // First tile after the origin on the in-cluster path to a reached tile
+        int firstStepTo(int tile) {
+            int cell = local(tile);
+            int origin = local(originTile);
+            while (parent[cell] != origin) {
+                cell = parent[cell];
+            }
+            return (top + cell / width) * cols + left + cell % width;
+        }
+
+        int getOrigin() {
+            return originTile;
+        }
+    }
+
+    // Growable int array used while building the graph
+    private static class IntList {
+        private int[] values = new int[256];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
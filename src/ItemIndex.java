@@ -0,0 +1,84 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Spikes, coins and keys bucketed by CHUNK_TILES x CHUNK_TILES blocks of tiles, so a frame draws
+// each visible item exactly once and never looks at the items outside the view. Lives on the
+// simulation thread. Animation is picked from the tick at paint time, so only the chunks where an
+// item was added or picked up are copied into the next published grid; the rest are shared with
+// the previous one.
+public class ItemIndex {
+
+    public static final int CHUNK_TILES = 8;
+
+    private int chunkRows;
+    private int chunkCols;
+    private final List<List<MazeItem>> chunkItems = new ArrayList<>();
+    private boolean[] dirty = new boolean[0];
+    private boolean anyDirty;
+    private WorldSnapshot.SpriteGrid grid = new WorldSnapshot.SpriteGrid(0, 0, new WorldSnapshot.ItemSprite[0][]);
+
+    // Starts over for a maze of the given size in tiles; add the items again afterwards
+    public void clear(int rows, int cols) {
+        chunkRows = (rows + CHUNK_TILES - 1) / CHUNK_TILES;
+        chunkCols = (cols + CHUNK_TILES - 1) / CHUNK_TILES;
+        int chunks = chunkRows * chunkCols;
+        chunkItems.clear();
+        for (int i = 0; i < chunks; i++) {
+            chunkItems.add(new ArrayList<>());
+        }
+        dirty = new boolean[chunks];
+        Arrays.fill(dirty, true);
+        anyDirty = true;
+        grid = new WorldSnapshot.SpriteGrid(chunkRows, chunkCols, new WorldSnapshot.ItemSprite[chunks][]);
+    }
+
+    public void addAll(List<? extends MazeItem> items) {
+        for (MazeItem item : items) {
+            int chunk = chunkOf(item);
+            chunkItems.get(chunk).add(item);
+            dirty[chunk] = true;
+        }
+        anyDirty = true;
+    }
+
+    // Marks the item's chunk for copying into the next grid, e.g. once it has been collected
+    public void changed(MazeItem item) {
+        dirty[chunkOf(item)] = true;
+        anyDirty = true;
+    }
+
+    // Grid of what to draw as of now; the same instance as last time if nothing changed
+    public WorldSnapshot.SpriteGrid publish() {
+        if (!anyDirty) {
+            return grid;
+        }
+        WorldSnapshot.ItemSprite[][] chunks = grid.chunks().clone();
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            if (!dirty[chunk]) {
+                continue;
+            }
+            dirty[chunk] = false;
+            List<MazeItem> items = chunkItems.get(chunk);
+            List<WorldSnapshot.ItemSprite> sprites = new ArrayList<>(items.size());
+            for (MazeItem item : items) {
+                if (!item.isCollected()) {
+                    sprites.add(new WorldSnapshot.ItemSprite(item.getAnimationFrames(), item.getTicksPerFrame(),
+                            item.getAnimationPhase(), item.getX(), item.getY()));
+                }
+            }
+            chunks[chunk] = sprites.toArray(new WorldSnapshot.ItemSprite[0]);
+        }
+        anyDirty = false;
+        grid = new WorldSnapshot.SpriteGrid(chunkRows, chunkCols, chunks);
+        return grid;
+    }
+
+    private int chunkOf(MazeItem item) {
+        int row = (int) (item.getY() / MazePanel.CELL_SIZE) / CHUNK_TILES;
+        int col = (int) (item.getX() / MazePanel.CELL_SIZE) / CHUNK_TILES;
+        row = Math.max(0, Math.min(chunkRows - 1, row));
+        col = Math.max(0, Math.min(chunkCols - 1, col));
+        return row * chunkCols + col;
+    }
+}
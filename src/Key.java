@@ -2,28 +2,21 @@ import java.awt.image.BufferedImage;
 import java.util.List;
 import java.util.Random;
 
-public class Key {
+public class Key implements MazeItem {
+    private static final int TICKS_PER_FRAME = GameLoop.TICKS_PER_SECOND / 4; // 250 ms
+
     private final double x;
-    private final double y;
-    private int currentFrame = 0;
+    private double y;
     private boolean isCollected = false;
-    private long lastFrameTime = 0;
     private final List<BufferedImage> animationFrames;
+    private final int animationPhase;
 
     public Key(double x, double y, List<BufferedImage> animationFrames) {
         this.x = x;
         this.y = y;
         this.animationFrames = animationFrames;
         Random random = new Random();
-        this.lastFrameTime = System.currentTimeMillis() + random.nextInt(690); // Random offset up to 1 second
-    }
-
-    public void updateAnimation(double deltaTime) {
-        long currentTime = System.currentTimeMillis();
-        if (currentTime > lastFrameTime + 250) {
-            currentFrame = (currentFrame + 1) % animationFrames.size();
-            lastFrameTime = currentTime;
-        }
+        this.animationPhase = random.nextInt(GameLoop.TICKS_PER_SECOND * 690 / 1000); // Random offset up to 690 ms
     }
 
     public void collect() {
@@ -34,6 +27,11 @@ public class Key {
         return isCollected;
     }
 
+    // Moves the sprite when the endless maze scrolls
+    public void shiftY(double dy) {
+        y += dy;
+    }
+
     public double getX() {
         return x;
     }
@@ -42,7 +40,15 @@ public class Key {
         return y;
     }
 
-    public BufferedImage getImage() {
-        return animationFrames.get(currentFrame);
+    public List<BufferedImage> getAnimationFrames() {
+        return animationFrames;
+    }
+
+    public int getTicksPerFrame() {
+        return TICKS_PER_FRAME;
+    }
+
+    public int getAnimationPhase() {
+        return animationPhase;
     }
 }
\ No newline at end of file
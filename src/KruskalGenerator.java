@@ -0,0 +1,77 @@
+import java.util.Random;
+
+// Randomized Kruskal: visit every inner wall in shuffled order and knock it down when the
+// two cells it separates belong to different union-find sets.
+public class KruskalGenerator implements MazeGenerator {
+
+    @Override
+    public void carve(Maze maze, Random random) {
+        int rows = maze.getRows() / 2;
+        int cols = maze.getCols() / 2;
+        int cellCount = rows * cols;
+
+        int[] parent = new int[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            parent[i] = i;
+            maze.set((i / cols) * 2 + 1, (i % cols) * 2 + 1, MazeLogic.FLOOR);
+        }
+
+        // Edge e = cell * 2 + 0 joins cell with its right neighbour, cell * 2 + 1 with the one below
+        int[] edges = new int[cellCount * 2];
+        int edgeCount = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (cell % cols < cols - 1) edges[edgeCount++] = cell * 2;
+            if (cell / cols < rows - 1) edges[edgeCount++] = cell * 2 + 1;
+        }
+
+        // Fisher-Yates shuffle
+        for (int i = edgeCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = edges[i];
+            edges[i] = edges[j];
+            edges[j] = tmp;
+        }
+
+        int joined = 0;
+        for (int i = 0; i < edgeCount && joined < cellCount - 1; i++) {
+            int cell = edges[i] >> 1;
+            boolean down = (edges[i] & 1) == 1;
+            int other = down ? cell + cols : cell + 1;
+
+            int rootA = find(parent, cell);
+            int rootB = find(parent, other);
+            if (rootA == rootB) {
+                continue;
+            }
+            parent[rootA] = rootB;
+            joined++;
+
+            int row = (cell / cols) * 2 + 1;
+            int col = (cell % cols) * 2 + 1;
+            if (down) {
+                maze.set(row + 1, col, MazeLogic.FLOOR);
+            } else {
+                maze.set(row, col + 1, MazeLogic.FLOOR);
+            }
+        }
+    }
+
+    // Find with path halving
+    private static int find(int[] parent, int cell) {
+        while (parent[cell] != cell) {
+            parent[cell] = parent[parent[cell]];
+            cell = parent[cell];
+        }
+        return cell;
+    }
+
+    @Override
+    public String getName() {
+        return "Kruskal";
+    }
+
+    @Override
+    public long estimateWorkingBytes(int rows, int cols) {
+        return 12L * rows * cols; // Union-find parents plus two edges per cell
+    }
+}
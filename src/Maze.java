@@ -0,0 +1,250 @@
+// Tile grid of a maze stored row-major in a flat MazeStorage, together with indexes of where
+// the items are so per-tick lookups don't have to scan the grid.
+// The indexes are built by indexItems() and go stale if tiles change afterwards.
+public class Maze {
+
+    // Above this many tiles new mazes are packed off-heap instead of one byte per tile on the heap
+    public static final int PACKED_THRESHOLD = 1 << 26;
+
+    private final int rows;
+    private final int cols;
+    private final MazeStorage tiles;
+    private long seed = 0;
+    private int startIndex = -1;
+
+    private int exitIndex = -1;
+    private int[] keyCells = new int[0];
+    private int[] coinCells = new int[0];
+    private int[] spikeCells = new int[0];
+    private int[] treasureCells = new int[0];
+    private int walkableCount = 0;
+
+    // A maze of rows x cols tiles, all WALL
+    public Maze(int rows, int cols) {
+        this(rows, cols, (long) rows * cols > PACKED_THRESHOLD);
+    }
+
+    public Maze(int rows, int cols, boolean packed) {
+        this(rows, cols, allocate(rows, cols, packed));
+        tiles.fill(0, tiles.size(), MazeLogic.WALL);
+    }
+
+    // A maze over existing tiles, as loaded from a file
+    public Maze(int rows, int cols, MazeStorage tiles) {
+        if (tiles.size() != (long) rows * cols) {
+            throw new IllegalArgumentException("Storage of " + tiles.size() + " tiles does not fit a " + rows + "x" + cols + " maze");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.tiles = tiles;
+    }
+
+    private static MazeStorage allocate(int rows, int cols, boolean packed) {
+        if ((long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Maze of " + rows + "x" + cols + " tiles is too large");
+        }
+        return packed ? new PackedMazeStorage(rows * cols) : new ArrayMazeStorage(rows * cols);
+    }
+
+    private Maze(Maze other, MazeStorage tiles) {
+        if (tiles.size() != other.tiles.size()) {
+            throw new IllegalArgumentException("Storage of " + tiles.size() + " tiles does not fit a " + other.rows + "x" + other.cols + " maze");
+        }
+        this.rows = other.rows;
+        this.cols = other.cols;
+        this.tiles = tiles;
+        this.seed = other.seed;
+        this.startIndex = other.startIndex;
+        this.exitIndex = other.exitIndex;
+        this.keyCells = other.keyCells;
+        this.coinCells = other.coinCells;
+        this.spikeCells = other.spikeCells;
+        this.treasureCells = other.treasureCells;
+        this.walkableCount = other.walkableCount;
+    }
+
+    public Maze copy() {
+        return new Maze(this, tiles.copy());
+    }
+
+    // A copy with the seed, start and item indexes of this maze over other tiles of the same size
+    public Maze copy(MazeStorage tiles) {
+        return new Maze(this, tiles);
+    }
+
+    public int get(int row, int col) {
+        return tiles.get(row * cols + col);
+    }
+
+    public int get(int index) {
+        return tiles.get(index);
+    }
+
+    public void set(int row, int col, int type) {
+        tiles.set(row * cols + col, type);
+    }
+
+    public void set(int index, int type) {
+        tiles.set(index, type);
+    }
+
+    public boolean isInside(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < cols;
+    }
+
+    // Out-of-bounds tiles count as walls
+    public boolean isWall(int row, int col) {
+        return !isInside(row, col) || tiles.get(row * cols + col) == MazeLogic.WALL;
+    }
+
+    public int index(int row, int col) {
+        return row * cols + col;
+    }
+
+    public int rowOf(int index) {
+        return index / cols;
+    }
+
+    public int colOf(int index) {
+        return index % cols;
+    }
+
+    // Moves every tile up by the given number of rows and fills the rows freed at the bottom
+    // with walls. Used by the endless mode to scroll its window.
+    public void scrollUp(int tileRows) {
+        int shifted = tileRows * cols;
+        tiles.copyWithin(shifted, 0, tiles.size() - shifted);
+        tiles.fill(tiles.size() - shifted, tiles.size(), MazeLogic.WALL);
+    }
+
+    // Rebuilds the exit, key, coin, spike and treasure indexes: one pass over the tiles counts
+    // each kind so the arrays are allocated at their exact size, a second fills them in
+    public void indexItems() {
+        int keys = 0, coins = 0, spikes = 0, treasures = 0, walkable = 0;
+        exitIndex = -1;
+        for (int i = 0; i < tiles.size(); i++) {
+            switch (tiles.get(i)) {
+                case MazeLogic.WALL -> { continue; }
+                case MazeLogic.KEY -> keys++;
+                case MazeLogic.COIN -> coins++;
+                case MazeLogic.SPIKE -> spikes++;
+                case MazeLogic.TREASURE -> treasures++;
+                case MazeLogic.EXIT -> exitIndex = i;
+                default -> { }
+            }
+            walkable++;
+        }
+
+        keyCells = new int[keys];
+        coinCells = new int[coins];
+        spikeCells = new int[spikes];
+        treasureCells = new int[treasures];
+        walkableCount = walkable;
+        keys = coins = spikes = treasures = 0;
+        for (int i = 0; i < tiles.size(); i++) {
+            switch (tiles.get(i)) {
+                case MazeLogic.KEY -> keyCells[keys++] = i;
+                case MazeLogic.COIN -> coinCells[coins++] = i;
+                case MazeLogic.SPIKE -> spikeCells[spikes++] = i;
+                case MazeLogic.TREASURE -> treasureCells[treasures++] = i;
+                default -> { }
+            }
+        }
+    }
+
+    // Restores indexes saved alongside the tiles instead of rescanning them
+    public void restoreItems(int exitIndex, int[] keyCells, int[] coinCells, int[] spikeCells,
+                             int[] treasureCells, int walkableCount) {
+        this.exitIndex = exitIndex;
+        this.keyCells = keyCells;
+        this.coinCells = coinCells;
+        this.spikeCells = spikeCells;
+        this.treasureCells = treasureCells;
+        this.walkableCount = walkableCount;
+    }
+
+    // Seed the maze was generated from, 0 if unknown
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    // Tile the hero starts on, -1 if the maze doesn't say
+    public int getStartIndex() {
+        return startIndex;
+    }
+
+    public void setStartIndex(int startIndex) {
+        this.startIndex = startIndex;
+    }
+
+    public boolean hasStart() {
+        return startIndex >= 0;
+    }
+
+    public int getStartRow() {
+        return startIndex / cols;
+    }
+
+    public int getStartCol() {
+        return startIndex % cols;
+    }
+
+    public int getExitIndex() {
+        return exitIndex;
+    }
+
+    public boolean hasExit() {
+        return exitIndex >= 0;
+    }
+
+    public int getExitRow() {
+        return exitIndex / cols;
+    }
+
+    public int getExitCol() {
+        return exitIndex % cols;
+    }
+
+    // Flat tile indices of every key, coin, spike and treasure, in row-major order
+    public int[] getKeyCells() {
+        return keyCells;
+    }
+
+    public int[] getCoinCells() {
+        return coinCells;
+    }
+
+    public int[] getSpikeCells() {
+        return spikeCells;
+    }
+
+    public int[] getTreasureCells() {
+        return treasureCells;
+    }
+
+    // Number of tiles that are not walls
+    public int getWalkableCount() {
+        return walkableCount;
+    }
+
+    public MazeStorage getStorage() {
+        return tiles;
+    }
+
+    // Approximate footprint of the tiles and indexes
+    public long getSizeInBytes() {
+        return tiles.getSizeInBytes() + 4L * (keyCells.length + coinCells.length + spikeCells.length + treasureCells.length);
+    }
+}
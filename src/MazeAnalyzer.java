@@ -0,0 +1,170 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Checks that a level can be finished and measures how hard it is, with a single breadth-first
+// search from the key. Distances from the key give hero->key and key->exit at once, and the
+// solution is retraced by walking down the distance gradient, so no parent links are stored.
+// Usage: java MazeAnalyzer <maze file or directory>...
+public class MazeAnalyzer {
+
+    // Offsets for the four neighbouring tiles: Up, Down, Left, Right
+    private static final int[] DIR_ROW = {-1, 1, 0, 0};
+    private static final int[] DIR_COL = {0, 0, -1, 1};
+
+    public record Report(long seed, boolean solvable, int heroToKey, int keyToExit, int reachableTiles,
+                         int deadEnds, int junctions, double branchingFactor, int spikesOnSolution) {
+
+        public int solutionLength() {
+            return solvable ? heroToKey + keyToExit : -1;
+        }
+    }
+
+    public static Report analyze(Maze maze) {
+        int rows = maze.getRows();
+        int cols = maze.getCols();
+        int[] keys = maze.getKeyCells();
+        int hero = maze.getStartIndex();
+        int exit = maze.getExitIndex();
+        // Without a key the level is just hero->exit
+        int root = keys.length > 0 ? keys[0] : hero;
+        if (root < 0) {
+            return new Report(maze.getSeed(), false, -1, -1, 0, 0, 0, 0, 0);
+        }
+
+        int[] distance = new int[rows * cols];
+        Arrays.fill(distance, -1);
+        // Sized by tiles rather than the walkable count, which a loaded file's header could understate
+        int[] queue = new int[rows * cols];
+        int head = 0, tail = 0;
+        distance[root] = 0;
+        queue[tail++] = root;
+
+        int deadEnds = 0, junctions = 0;
+        while (head < tail) {
+            int cell = queue[head++];
+            int row = cell / cols;
+            int col = cell % cols;
+            int degree = 0;
+            for (int dir = 0; dir < 4; dir++) {
+                int nextRow = row + DIR_ROW[dir];
+                int nextCol = col + DIR_COL[dir];
+                if (maze.isWall(nextRow, nextCol)) {
+                    continue;
+                }
+                degree++;
+                int next = nextRow * cols + nextCol;
+                if (distance[next] < 0) {
+                    distance[next] = distance[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+            if (degree == 1) deadEnds++;
+            if (degree >= 3) junctions++;
+        }
+
+        int reachable = tail;
+        // Average number of onward passages from a tile that isn't a dead end
+        double branchingFactor = reachable > deadEnds ? (double) (reachable - 1) / (reachable - deadEnds) : 0;
+
+        boolean solvable = hero >= 0 && distance[hero] >= 0 && (exit < 0 ? keys.length == 0 : distance[exit] >= 0);
+        if (!solvable) {
+            return new Report(maze.getSeed(), false, -1, -1, reachable, deadEnds, junctions, branchingFactor, 0);
+        }
+
+        int heroToKey = keys.length > 0 ? distance[hero] : 0;
+        int keyToExit = exit >= 0 ? distance[exit] : 0;
+        int spikes = exit >= 0 ? countSpikesToRoot(maze, distance, exit) : 0;
+        if (keys.length > 0) {
+            spikes += countSpikesToRoot(maze, distance, hero);
+        }
+        return new Report(maze.getSeed(), true, heroToKey, keyToExit, reachable, deadEnds, junctions,
+                branchingFactor, spikes);
+    }
+
+    // Follows decreasing distance from the given tile back to the BFS root, counting spikes
+    private static int countSpikesToRoot(Maze maze, int[] distance, int cell) {
+        int cols = maze.getCols();
+        int spikes = 0;
+        while (distance[cell] > 0) {
+            if (maze.get(cell) == MazeLogic.SPIKE) {
+                spikes++;
+            }
+            int row = cell / cols;
+            int col = cell % cols;
+            for (int dir = 0; dir < 4; dir++) {
+                int nextRow = row + DIR_ROW[dir];
+                int nextCol = col + DIR_COL[dir];
+                if (!maze.isWall(nextRow, nextCol) && distance[nextRow * cols + nextCol] == distance[cell] - 1) {
+                    cell = nextRow * cols + nextCol;
+                    break;
+                }
+            }
+        }
+        return maze.get(cell) == MazeLogic.SPIKE ? spikes + 1 : spikes;
+    }
+
+    // Analyzes every maze on the common fork-join pool; reports come back in input order
+    public static List<Report> analyzeAll(List<Maze> mazes) {
+        return mazes.parallelStream().map(MazeAnalyzer::analyze).toList();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: java MazeAnalyzer <maze file or directory>...");
+            System.exit(1);
+        }
+        System.setProperty("java.awt.headless", "true");
+
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Path.of(arg);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> listing = Files.list(path)) {
+                    listing.filter(file -> file.toString().endsWith(".maze")).sorted().forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+
+        long start = System.nanoTime();
+        List<Report> reports = files.parallelStream().map(file -> {
+            try {
+                return analyze(MazeFile.read(file));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).toList();
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%-20s %8s %8s %8s %9s %9s %8s %7s%n", "seed", "solution", "to key", "to exit",
+                "dead ends", "junctions", "branch", "spikes");
+        for (Report report : reports) {
+            System.out.printf("%-20d %8d %8d %8d %9d %9d %8.3f %7d%n", report.seed(), report.solutionLength(),
+                    report.heroToKey(), report.keyToExit(), report.deadEnds(), report.junctions(),
+                    report.branchingFactor(), report.spikesOnSolution());
+        }
+        printSummary(reports);
+        System.out.printf("Analyzed %d mazes in %.1f ms%n", reports.size(), elapsed / 1e6);
+    }
+
+    public static void printSummary(List<Report> reports) {
+        List<Report> solvable = reports.stream().filter(Report::solvable)
+                .sorted(Comparator.comparingInt(Report::solutionLength)).toList();
+        System.out.printf("%d of %d mazes solvable", solvable.size(), reports.size());
+        if (!solvable.isEmpty()) {
+            System.out.printf("; solution length min %d, median %d, max %d; mean spikes on solution %.2f",
+                    solvable.get(0).solutionLength(), solvable.get(solvable.size() / 2).solutionLength(),
+                    solvable.get(solvable.size() - 1).solutionLength(),
+                    solvable.stream().mapToInt(Report::spikesOnSolution).average().orElse(0));
+        }
+        System.out.println();
+    }
+}
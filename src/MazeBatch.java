@@ -0,0 +1,93 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Headless batch generator for pre-building and vetting levels offline. Generates one maze per
+// seed across all cores with a parallel stream on the common fork-join pool, writes each to
+// <outputDir>/maze-<seed>.maze and reports generation time percentiles and throughput. Each maze
+// is also run through MazeAnalyzer right after it is written so unsolvable seeds are caught
+// before shipping.
+// Uses no Swing or AWT classes.
+// Usage: java MazeBatch <count> <rows> <cols> [level] [outputDir] [firstSeed]
+public class MazeBatch {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: java MazeBatch <count> <rows> <cols> [level] [outputDir] [firstSeed]");
+            System.exit(1);
+        }
+        System.setProperty("java.awt.headless", "true");
+
+        int count = Integer.parseInt(args[0]);
+        int rows = Integer.parseInt(args[1]);
+        int cols = Integer.parseInt(args[2]);
+        int level = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        Path outputDir = Path.of(args.length > 4 ? args[4] : "mazes");
+        long firstSeed = args.length > 5 ? Long.parseLong(args[5]) : 1L;
+        if (count <= 0 || rows <= 0 || cols <= 0) {
+            System.err.println("count, rows and cols must be positive");
+            System.exit(1);
+        }
+
+        Files.createDirectories(outputDir);
+
+        long[] generationNanos = new long[count];
+        long[] writeNanos = new long[count];
+        MazeAnalyzer.Report[] reports = new MazeAnalyzer.Report[count];
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        System.out.printf("Generating %d mazes of %dx%d (level %d, %s) on %d threads into %s%n", count, rows, cols,
+                level, MazeGenerator.forLevel(level).getName(), pool.getParallelism(), outputDir);
+
+        long start = System.nanoTime();
+        IntStream.range(0, count).parallel().forEach(i -> generate(i, rows, cols, level, firstSeed, outputDir,
+                generationNanos, writeNanos, reports));
+        long wallNanos = System.nanoTime() - start;
+
+        long cells = (long) rows * cols * count;
+        System.out.printf("Done in %.2f s: %.0f cells/s overall, %.0f cells/s per thread%n", wallNanos / 1e9,
+                cells * 1e9 / wallNanos, cells * 1e9 / Arrays.stream(generationNanos).sum());
+        printPercentiles("generate", generationNanos);
+        printPercentiles("write", writeNanos);
+        MazeAnalyzer.printSummary(Arrays.asList(reports));
+        for (MazeAnalyzer.Report report : reports) {
+            if (!report.solvable()) {
+                System.err.println("Unsolvable maze: seed " + report.seed());
+            }
+        }
+    }
+
+    private static void printPercentiles(String label, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-9s ms  p50 %8.2f  p90 %8.2f  p99 %8.2f  max %8.2f%n", label,
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.90) / 1e6,
+                percentile(sorted, 0.99) / 1e6, sorted[sorted.length - 1] / 1e6);
+    }
+
+    // Nearest-rank percentile of an ascending array
+    private static long percentile(long[] sorted, double fraction) {
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    // Generates, writes and analyzes the maze for seed firstSeed + i, leaving its timings and report at i
+    private static void generate(int i, int rows, int cols, int level, long firstSeed, Path outputDir,
+                                 long[] generationNanos, long[] writeNanos, MazeAnalyzer.Report[] reports) {
+        long seed = firstSeed + i;
+        long start = System.nanoTime();
+        Maze maze = MazeLogic.generateMaze(rows, cols, level, seed);
+        long generated = System.nanoTime();
+        try {
+            MazeFile.write(outputDir.resolve("maze-" + seed + ".maze"), maze);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        generationNanos[i] = generated - start;
+        writeNanos[i] = System.nanoTime() - generated;
+        reports[i] = MazeAnalyzer.analyze(maze);
+    }
+}
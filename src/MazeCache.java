@@ -0,0 +1,73 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Least-recently-used cache of generated mazes, bounded by the memory the mazes take up.
+// Because generation is seed-driven, a hit is identical to what regenerating would produce.
+public class MazeCache {
+
+    private record Key(long seed, int rows, int cols, int level) {}
+
+    private final long maxBytes;
+    private long currentBytes = 0;
+    private final LinkedHashMap<Key, Maze> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits = 0;
+    private long misses = 0;
+
+    public MazeCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // Returns a private copy, so the caller may modify its maze without affecting the cache
+    public synchronized Maze getOrGenerate(long seed, int rows, int cols, int level) {
+        Key key = new Key(seed, rows, cols, level);
+        Maze maze = entries.get(key);
+        if (maze != null) {
+            hits++;
+            return maze.copy();
+        }
+
+        misses++;
+        maze = MazeLogic.generateMaze(rows, cols, level, seed);
+        long bytes = maze.getSizeInBytes();
+        if (bytes <= maxBytes) {
+            entries.put(key, maze.copy());
+            currentBytes += bytes;
+            evict();
+        }
+        return maze;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Key, Maze>> eldest = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            currentBytes -= eldest.next().getValue().getSizeInBytes();
+            eldest.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
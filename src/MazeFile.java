@@ -0,0 +1,235 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Versioned binary maze format, little-endian throughout:
+//
+//   offset  size  field
+//        0     4  magic "MAZE"
+//        4     2  format version
+//        6     2  flags (reserved, 0)
+//        8     4  rows (tiles)
+//       12     4  cols (tiles)
+//       16     8  seed
+//       24     4  exit tile index, -1 if none
+//       28     4  walkable tile count
+//       32    16  key, coin, spike and treasure counts
+//       48     4  hero start tile index, -1 if none (version 2 and up)
+//       52    12  reserved
+//       64     .  tiles, two per byte (low nibble first), padded to a multiple of 8 bytes
+//        .     .  key, coin, spike and treasure tile indices as int32
+//
+// Reading maps the tile section straight into a PackedMazeStorage, so loading costs a few
+// page mappings, one pass over the packed bytes to reject unknown tile types, and copying the
+// item indices.
+public class MazeFile {
+
+    public static final int MAGIC = 0x455A414D; // "MAZE" when read little-endian
+    public static final short VERSION = 2;
+    private static final int HEADER_BYTES = 64;
+    private static final int CHUNK_BYTES = 1 << 16;
+    // Bit t is set for every tile type t a maze can hold
+    private static final int KNOWN_TILES = 1 << MazeLogic.FLOOR | 1 << MazeLogic.WALL | 1 << MazeLogic.SPIKE
+            | 1 << MazeLogic.TREASURE | 1 << MazeLogic.COIN | 1 << MazeLogic.KEY | 1 << MazeLogic.EXIT;
+
+    // Pre-built campaign levels are looked up here before a level is generated
+    public static final Path CAMPAIGN_DIR = Path.of("campaign");
+
+    public static Path campaignLevel(int level) {
+        return CAMPAIGN_DIR.resolve("level" + level + ".maze");
+    }
+
+    public static void write(Path path, Maze maze) throws IOException {
+        int tileCount = maze.getRows() * maze.getCols();
+        long tileBytes = packedBytes(tileCount);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC)
+                    .putShort(VERSION)
+                    .putShort((short) 0)
+                    .putInt(maze.getRows())
+                    .putInt(maze.getCols())
+                    .putLong(maze.getSeed())
+                    .putInt(maze.getExitIndex())
+                    .putInt(maze.getWalkableCount())
+                    .putInt(maze.getKeyCells().length)
+                    .putInt(maze.getCoinCells().length)
+                    .putInt(maze.getSpikeCells().length)
+                    .putInt(maze.getTreasureCells().length)
+                    .putInt(maze.getStartIndex());
+            header.clear();
+            writeFully(channel, header);
+
+            if (maze.getStorage() instanceof PackedMazeStorage packed) {
+                writeFully(channel, packed.asReadOnlyBuffer());
+                writeFully(channel, ByteBuffer.allocate((int) (tileBytes - packedBytes(tileCount, false))));
+            } else {
+                writePackedTiles(channel, maze, tileCount, tileBytes);
+            }
+
+            for (int[] cells : new int[][]{maze.getKeyCells(), maze.getCoinCells(),
+                    maze.getSpikeCells(), maze.getTreasureCells()}) {
+                writeInts(channel, cells);
+            }
+        }
+    }
+
+    // The tiles of the returned maze are a read-only mapping of the file; copy() the maze to edit it
+    public static Maze read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(path + " is too short to be a maze file");
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // Keep reading until the header is complete
+            }
+            header.flip();
+
+            if (header.getInt() != MAGIC) {
+                throw new IOException(path + " is not a maze file");
+            }
+            short version = header.getShort();
+            if (version < 1 || version > VERSION) {
+                throw new IOException(path + " has unsupported maze format version " + version);
+            }
+            header.getShort(); // Flags
+            int rows = header.getInt();
+            int cols = header.getInt();
+            long seed = header.getLong();
+            int exitIndex = header.getInt();
+            int walkable = header.getInt();
+            int[] counts = {header.getInt(), header.getInt(), header.getInt(), header.getInt()};
+            int startIndex = version >= 2 ? header.getInt() : -1;
+
+            long tileCount = (long) rows * cols;
+            if (rows <= 0 || cols <= 0 || tileCount > Integer.MAX_VALUE) {
+                throw new IOException(path + " has invalid dimensions " + rows + "x" + cols);
+            }
+            for (int count : counts) {
+                if (count < 0 || count > tileCount) {
+                    throw new IOException(path + " has invalid item count " + count);
+                }
+            }
+            if (walkable < 0 || walkable > tileCount) {
+                throw new IOException(path + " has invalid walkable tile count " + walkable);
+            }
+            checkIndex(path, "exit", exitIndex, tileCount);
+            checkIndex(path, "start", startIndex, tileCount);
+            long tileBytes = packedBytes((int) tileCount);
+            long expected = HEADER_BYTES + tileBytes;
+            for (int count : counts) {
+                expected += 4L * count;
+            }
+            if (channel.size() < expected) {
+                throw new IOException(path + " is truncated: " + channel.size() + " of " + expected + " bytes");
+            }
+
+            MappedByteBuffer tiles = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, tileBytes);
+            checkTiles(path, tiles, (int) tileCount);
+            Maze maze = new Maze(rows, cols, new PackedMazeStorage(tiles, (int) tileCount));
+            maze.setSeed(seed);
+            maze.setStartIndex(startIndex);
+
+            int[][] items = new int[4][];
+            long offset = HEADER_BYTES + tileBytes;
+            for (int i = 0; i < 4; i++) {
+                items[i] = readInts(channel, offset, counts[i]);
+                offset += 4L * counts[i];
+                for (int cell : items[i]) {
+                    if (cell < 0 || cell >= tileCount) {
+                        throw new IOException(path + " has item tile " + cell + " outside the maze");
+                    }
+                }
+            }
+            maze.restoreItems(exitIndex, items[0], items[1], items[2], items[3], walkable);
+            return maze;
+        }
+    }
+
+    // -1 means the maze has none
+    private static void checkIndex(Path path, String name, int index, long tileCount) throws IOException {
+        if (index < -1 || index >= tileCount) {
+            throw new IOException(path + " has " + name + " tile " + index + " outside the maze");
+        }
+    }
+
+    // Both nibbles of every byte must be known tile types; the padding nibble after an odd tile
+    // count is written as FLOOR
+    private static void checkTiles(Path path, ByteBuffer tiles, int tileCount) throws IOException {
+        int bytes = (int) packedBytes(tileCount, false);
+        for (int i = 0; i < bytes; i++) {
+            int packed = tiles.get(i);
+            int low = packed & 0x0F;
+            int high = (packed >>> 4) & 0x0F;
+            if ((KNOWN_TILES >>> low & 1) == 0 || (KNOWN_TILES >>> high & 1) == 0) {
+                int type = (KNOWN_TILES >>> low & 1) == 0 ? low : high;
+                throw new IOException(path + " has unknown tile type " + type + " near tile " + 2L * i);
+            }
+        }
+    }
+
+    private static void writePackedTiles(FileChannel channel, Maze maze, int tileCount, long tileBytes) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES);
+        for (int i = 0; i < tileCount; i += 2) {
+            int low = maze.get(i);
+            int high = i + 1 < tileCount ? maze.get(i + 1) : 0;
+            chunk.put((byte) (low | (high << 4)));
+            if (!chunk.hasRemaining()) {
+                chunk.flip();
+                writeFully(channel, chunk);
+                chunk.clear();
+            }
+        }
+        for (long written = packedBytes(tileCount, false); written < tileBytes; written++) {
+            chunk.put((byte) 0); // Padding
+        }
+        chunk.flip();
+        writeFully(channel, chunk);
+    }
+
+    private static void writeInts(FileChannel channel, int[] values) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int offset = 0; offset < values.length; ) {
+            int count = Math.min(values.length - offset, CHUNK_BYTES / 4);
+            chunk.clear();
+            chunk.asIntBuffer().put(values, offset, count);
+            chunk.limit(count * 4);
+            writeFully(channel, chunk);
+            offset += count;
+        }
+    }
+
+    private static int[] readInts(FileChannel channel, long offset, int count) throws IOException {
+        int[] values = new int[count];
+        if (count > 0) {
+            IntBuffer ints = channel.map(FileChannel.MapMode.READ_ONLY, offset, 4L * count)
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            ints.get(values);
+        }
+        return values;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Packed tile section size, padded so the item indices that follow stay 8-byte aligned
+    private static long packedBytes(int tileCount) {
+        return packedBytes(tileCount, true);
+    }
+
+    private static long packedBytes(int tileCount, boolean padded) {
+        long bytes = (tileCount + 1L) / 2;
+        return padded ? (bytes + 7) & ~7L : bytes;
+    }
+}
@@ -0,0 +1,31 @@
+import java.util.Random;
+
+public interface MazeGenerator {
+
+    // Carves a perfect maze into a grid of (rows * 2 + 1) x (cols * 2 + 1) tiles that is
+    // entirely WALL on entry. Cell (r, c) lives at tile (r * 2 + 1, c * 2 + 1).
+    void carve(Maze maze, Random random);
+
+    String getName();
+
+    // Auxiliary memory the generator needs on top of the tile grid itself
+    long estimateWorkingBytes(int rows, int cols);
+
+    static MazeGenerator forLevel(int level) {
+        return switch (level) {
+            case 2 -> new PrimGenerator();
+            case 3 -> new KruskalGenerator();
+            default -> new BacktrackerGenerator();
+        };
+    }
+
+    static MazeGenerator[] all() {
+        return new MazeGenerator[]{
+                new BacktrackerGenerator(),
+                new KruskalGenerator(),
+                new PrimGenerator(),
+                new WilsonGenerator(),
+                new EllerGenerator()
+        };
+    }
+}
@@ -0,0 +1,24 @@
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+// An animated item lying on a maze tile: spikes, coins and keys. Which frame shows is worked out
+// from the tick when painting, so animating never touches the item or the ItemIndex.
+public interface MazeItem {
+
+    double getX();
+
+    double getY();
+
+    List<BufferedImage> getAnimationFrames();
+
+    // Ticks each frame stays up
+    int getTicksPerFrame();
+
+    // Ticks this item's animation runs ahead by, so items of one kind don't all flip together
+    int getAnimationPhase();
+
+    // Collected items are no longer drawn
+    default boolean isCollected() {
+        return false;
+    }
+}
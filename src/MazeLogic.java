@@ -1,9 +1,6 @@
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.Random;
-import java.util.Set;
 
 public class MazeLogic {
 
@@ -15,159 +12,153 @@ public class MazeLogic {
     public static final int KEY = 5;
     public static final int EXIT = 9;
 
-    private static final Random random = new Random();
+    private static volatile long lastGenerationNanos;
+    private static volatile long lastGenerationCells;
+    private static volatile boolean logGeneration;
 
-    public static int[][] generateMaze(int rows, int cols) {
-        int[][] maze = new int[rows * 2 + 1][cols * 2 + 1];
+    public static Maze generateMaze(int rows, int cols) {
+        return generateMaze(rows, cols, new BacktrackerGenerator(), new Random().nextLong());
+    }
 
-        // Initialize maze with walls
-        for (int i = 0; i < maze.length; i++) {
-            for (int j = 0; j < maze[0].length; j++) {
-                maze[i][j] = WALL;
-            }
-        }
+    public static Maze generateMaze(int rows, int cols, int level, long seed) {
+        return generateMaze(rows, cols, MazeGenerator.forLevel(level), seed);
+    }
 
-        // Start maze generation from a random cell
-        int startX = random.nextInt(rows) * 2 + 1;
-        int startY = random.nextInt(cols) * 2 + 1;
-        carvePassages(maze, startX, startY);
+    // The same generator, dimensions and seed always produce the same maze, items included
+    public static Maze generateMaze(int rows, int cols, MazeGenerator generator, long seed) {
+        long tiles = (long) (rows * 2 + 1) * (cols * 2 + 1);
+        return generateMaze(rows, cols, generator, seed, tiles > Maze.PACKED_THRESHOLD);
+    }
+
+    // packed selects the 4-bit off-heap tile storage instead of a byte per tile on the heap
+    public static Maze generateMaze(int rows, int cols, MazeGenerator generator, long seed, boolean packed) {
+        long startTime = System.nanoTime();
+        Random random = new Random(seed);
+        Maze maze = new Maze(rows * 2 + 1, cols * 2 + 1, packed); // Starts out as all walls
+        maze.setSeed(seed);
+
+        generator.carve(maze, random);
 
         // Place special items (updated logic for random placement)
-        placeSpecialItems(maze, rows, cols);
+        placeSpecialItems(maze, rows, cols, random);
+        maze.indexItems();
+
+        lastGenerationNanos = System.nanoTime() - startTime;
+        lastGenerationCells = (long) rows * cols;
+        if (logGeneration) {
+            System.out.printf("Generated %dx%d maze with %s in %.1f ms (%.0f cells/s)%n", rows, cols,
+                    generator.getName(), lastGenerationNanos / 1_000_000.0, getLastCellsPerSecond());
+        }
 
         return maze;
     }
 
-    private static void carvePassages(int[][] maze, int currentRow, int currentCol) {
-        maze[currentRow][currentCol] = FLOOR;
-
-        List<int[]> directions = new ArrayList<>();
-        directions.add(new int[]{0, 2}); // Up
-        directions.add(new int[]{0, -2}); // Down
-        directions.add(new int[]{2, 0}); // Right
-        directions.add(new int[]{-2, 0}); // Left
-        Collections.shuffle(directions);
-
-        for (int[] direction : directions) {
-            int newRow = currentRow + direction[0];
-            int newCol = currentCol + direction[1];
-
-            if (isValidCell(maze, newRow, newCol)) {
-                maze[currentRow + direction[0] / 2][currentCol + direction[1] / 2] = FLOOR;
-                carvePassages(maze, newRow, newCol);
-            }
+    // Generation throughput of the most recent generateMaze call, in maze cells per second
+    public static double getLastCellsPerSecond() {
+        if (lastGenerationNanos == 0) {
+            return 0;
         }
+        return lastGenerationCells * 1_000_000_000.0 / lastGenerationNanos;
     }
 
-    private static boolean isValidCell(int[][] maze, int row, int col) {
-        return (row > 0 && row < maze.length - 1 &&
-                col > 0 && col < maze[0].length - 1 &&
-                maze[row][col] == WALL);
+    public static long getLastGenerationNanos() {
+        return lastGenerationNanos;
     }
 
+    // Off by default so the game stays quiet; benchmarks turn it on to report generation time
+    public static void setLogGeneration(boolean enabled) {
+        logGeneration = enabled;
+    }
+
+    // Seed shared by everyone playing the given level today
+    public static long dailySeed(int level) {
+        long day = LocalDate.now(ZoneOffset.UTC).toEpochDay();
+        return day * 1_000_003L + level;
+    }
 
     // Function to place special items randomly in the maze
-    private static void placeSpecialItems(int[][] maze, int rows, int cols) {
-        placeExit(maze, rows, cols);
-        placeItemRandomly(maze, SPIKE, (int) (rows * cols * 0.05));  // 5% spikes
-        placeItemRandomly(maze, TREASURE, 2);
-        placeItemRandomly(maze, KEY, 1);
-        placeCoinsInTrails(maze, (int) (rows * cols * 0.20));
+    private static void placeSpecialItems(Maze maze, int rows, int cols, Random random) {
+        placeExit(maze, rows, cols, random);
+
+        FreeCellIndex freeCells = new FreeCellIndex(maze);
+        int spikes = (int) (rows * cols * 0.05); // 5% spikes
+        int coins = (int) (rows * cols * 0.20);
+        int required = spikes + 2 + 1 + coins + 1; // Items plus the hero start
+        if (required > freeCells.size()) {
+            throw new IllegalStateException("Maze of " + rows + "x" + cols + " has " + freeCells.size() +
+                    " free cells but its items need " + required);
+        }
+
+        placeItemRandomly(maze, freeCells, SPIKE, spikes, random);
+        placeItemRandomly(maze, freeCells, TREASURE, 2, random);
+        placeItemRandomly(maze, freeCells, KEY, 1, random);
+        placeCoinsInTrails(maze, freeCells, coins, random);
+        maze.setStartIndex(takeFreeCell(freeCells, random, "hero start", 0, 1));
     }
 
-    private static void placeCoinsInTrails(int[][] maze, int totalCoins) {
+    private static void placeCoinsInTrails(Maze maze, FreeCellIndex freeCells, int totalCoins, Random random) {
+        int width = maze.getCols();
+        int[] neighbours = new int[4];
         int placedCoins = 0;
         while (placedCoins < totalCoins) {
-            // Choose a random starting point on a FLOOR tile
-            int row, col;
-            do {
-                row = random.nextInt(maze.length / 2) * 2 + 1;
-                col = random.nextInt(maze[0].length / 2) * 2 + 1;
-            } while (maze[row][col] != FLOOR);
-
-            List<int[]> directions = new ArrayList<>();
-            checkAndSet(maze, row, col, directions);
+            // Start each trail on a random free cell
+            int cell = takeFreeCell(freeCells, random, "coin", placedCoins, totalCoins);
 
-            // Place coins along the trail
+            // Place coins along the trail, wandering to a free neighbouring tile each step
             int trailLength = random.nextInt(3) + 3; // Trail of 3 to 5 coins
-            int currentRow = row;
-            int currentCol = col;
-
             for (int i = 0; i < trailLength && placedCoins < totalCoins; i++) {
-                // Place coin if cell is a floor tile
-                if (maze[currentRow][currentCol] == FLOOR) {
-                    maze[currentRow][currentCol] = COIN;
-                    placedCoins++;
+                maze.set(cell, COIN);
+                placedCoins++;
+
+                int count = 0;
+                if (maze.get(cell - width) == FLOOR) neighbours[count++] = cell - width; // Up
+                if (maze.get(cell + width) == FLOOR) neighbours[count++] = cell + width; // Down
+                if (maze.get(cell - 1) == FLOOR) neighbours[count++] = cell - 1; // Left
+                if (maze.get(cell + 1) == FLOOR) neighbours[count++] = cell + 1; // Right
+                if (count == 0) {
+                    break; // Trail ran into a dead end
                 }
 
-                // If there are possible directions, choose one and move
-                if (!directions.isEmpty()) {
-                    int randomIndex = random.nextInt(directions.size());
-                    int[] direction = directions.get(randomIndex);
-                    currentRow += direction[0];
-                    currentCol += direction[1];
-
-                    // Remove the chosen direction to avoid immediate backtracking
-                    directions.remove(randomIndex);
-
-                    // Update possible directions after moving (avoiding walls and going back)
-                    directions.clear();
-                    checkAndSet(maze, row, col, directions);
-                } else {
-                    // No more valid directions from this point, break the loop
-                    break;
-                }
+                cell = neighbours[random.nextInt(count)];
             }
         }
     }
 
-    private static void checkAndSet(int[][] maze, int row, int col, List<int[]> directions) {
-        if (row > 0 && maze[row - 1][col] == FLOOR) directions.add(new int[]{-1, 0}); // Up
-        if (row < maze.length - 1 && maze[row + 1][col] == FLOOR) directions.add(new int[]{1, 0}); // Down
-        if (col > 0 && maze[row][col - 1] == FLOOR) directions.add(new int[]{0, -1}); // Left
-        if (col < maze[0].length - 1 && maze[row][col + 1] == FLOOR) directions.add(new int[]{0, 1}); // Right
+    // Function to place an item type randomly in the maze
+    private static void placeItemRandomly(Maze maze, FreeCellIndex freeCells, int itemType, int count, Random random) {
+        for (int placed = 0; placed < count; placed++) {
+            int cell = takeFreeCell(freeCells, random, "item " + itemType, placed, count);
+            maze.set(cell, itemType);
+        }
     }
 
-    // Function to place an item type randomly in the maze
-    private static void placeItemRandomly(int[][] maze, int itemType, int count) {
-        int placed = 0;
-        while (placed < count) {
-            int row = random.nextInt(maze.length / 2) * 2 + 1;
-            int col = random.nextInt(maze[0].length / 2) * 2 + 1;
-            if (maze[row][col] == FLOOR) {
-                maze[row][col] = itemType;
-                placed++;
-            }
+    private static int takeFreeCell(FreeCellIndex freeCells, Random random, String item, int placed, int count) {
+        int cell = freeCells.take(random);
+        if (cell < 0) {
+            throw new IllegalStateException("Ran out of free cells placing " + item +
+                    " (" + placed + " of " + count + " placed)");
         }
+        return cell;
     }
 
-    // Function to place the exit
-    private static void placeExit(int[][] maze, int rows, int cols) {
-        int exitRow, exitCol;
-        do {
-            // Choose a random side for the exit
-            int side = random.nextInt(4);
-
-            exitCol = switch (side) {
-                case 0 -> {
-                    exitRow = 1;
-                    yield random.nextInt(cols) * 2 + 1; // Top
-                }
-                case 1 -> {
-                    exitRow = random.nextInt(rows) * 2 + 1;
-                    yield maze[0].length - 2; // Right
-                }
-                case 2 -> {
-                    exitRow = maze.length - 2;
-                    yield random.nextInt(cols) * 2 + 1; // Bottom
-                }
-                default -> {
-                    exitRow = random.nextInt(rows) * 2 + 1;
-                    yield 1; // Left
-                }
-            };
-        } while (maze[exitRow][exitCol] != FLOOR);
+    // Function to place the exit on a random cell along the outer edge of the maze
+    private static void placeExit(Maze maze, int rows, int cols, Random random) {
+        int bottom = maze.getRows() - 2;
+        int right = maze.getCols() - 2;
+        int[] candidates = new int[(rows + cols) * 2];
+        int count = 0;
+        for (int col = 1; col <= right; col += 2) {
+            if (maze.get(1, col) == FLOOR) candidates[count++] = maze.index(1, col); // Top
+            if (maze.get(bottom, col) == FLOOR) candidates[count++] = maze.index(bottom, col); // Bottom
+        }
+        for (int row = 1; row <= bottom; row += 2) {
+            if (maze.get(row, right) == FLOOR) candidates[count++] = maze.index(row, right); // Right
+            if (maze.get(row, 1) == FLOOR) candidates[count++] = maze.index(row, 1); // Left
+        }
+        if (count == 0) {
+            throw new IllegalStateException("No free floor tile on the edge of the maze for the exit");
+        }
 
-        maze[exitRow][exitCol] = EXIT;
+        maze.set(candidates[random.nextInt(count)], EXIT);
     }
-}
\ No newline at end of file
+}
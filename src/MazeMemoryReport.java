@@ -0,0 +1,40 @@
+// Compares the memory a maze takes up as int[][], as a heap byte[] and packed off-heap.
+// Usage: java MazeMemoryReport [rows] [cols]
+public class MazeMemoryReport {
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int cols = args.length > 1 ? Integer.parseInt(args[1]) : rows;
+        int tileRows = rows * 2 + 1;
+        int tileCols = cols * 2 + 1;
+        long tiles = (long) tileRows * tileCols;
+
+        // int[][]: one array header per row plus four bytes per tile
+        long intGridBytes = 16L + tileRows * (16L + 4L * tileCols);
+
+        System.out.printf("%d x %d cells (%d tiles)%n", rows, cols, tiles);
+        System.out.printf("%-22s %14s %10s %12s %14s%n", "Layout", "bytes", "vs int[][]", "heap delta", "off-heap");
+        printRow("int[][] (previous)", intGridBytes, intGridBytes, -1, false);
+
+        for (boolean packed : new boolean[]{false, true}) {
+            long heapBefore = usedHeap();
+            Maze maze = MazeLogic.generateMaze(rows, cols, new BacktrackerGenerator(), 1L, packed);
+            long heapDelta = usedHeap() - heapBefore;
+            printRow(packed ? "packed 4-bit off-heap" : "byte[] heap", maze.getSizeInBytes(), intGridBytes,
+                    heapDelta, maze.getStorage().isOffHeap());
+        }
+    }
+
+    private static void printRow(String layout, long bytes, long intGridBytes, long heapDelta, boolean offHeap) {
+        System.out.printf("%-22s %14d %9.1f%% %12s %14s%n", layout, bytes, bytes * 100.0 / intGridBytes,
+                heapDelta < 0 ? "-" : String.valueOf(heapDelta), offHeap ? "yes" : "no");
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -1,22 +1,32 @@
 import javax.sound.sampled.*;
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.Random;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import javax.imageio.ImageIO;
 
-public class MazePanel extends JPanel {
+// Never serialized; most of its state is plain game objects that aren't Serializable
+@SuppressWarnings("serial")
+public final class MazePanel extends JPanel {
 
     public static final int CELL_SIZE = 40;
-    private final Timer animationTimer;
+    private final GameLoop gameLoop;
+    // Key presses from the Swing thread, applied at the start of the next tick
+    private final ConcurrentLinkedQueue<KeyInput> keyInputs = new ConcurrentLinkedQueue<>();
+    private int mazeLayout; // Bumped when the whole maze moves, so the next snapshot copies all of it
+    private int snapshotMazeLayout = -1;
+    private int[] changedTiles = new int[16]; // Tiles set since the last snapshot
+    private int changedTileCount;
+    private SnapshotMazeStorage snapshotTiles;
+    private Maze snapshotMaze;
     private final GameOver gameOverScreen;
     private int score = 0;
     private final List<BufferedImage> spikeAnimationFrames = new ArrayList<>();
@@ -25,25 +35,55 @@ public class MazePanel extends JPanel {
     private final List<Coin> coins = new ArrayList<>();
     private final List<BufferedImage> keyAnimationFrames = new ArrayList<>();
     private final List<Key> key = new ArrayList<>();
+    private final ItemIndex itemIndex = new ItemIndex(); // The items above, by chunk of tiles, for drawing
     private final List<BufferedImage> healthBarFrames = new ArrayList<>();
     private HealthBar heroHealthBar;
     private int accumulatedSpikeDamage = 0;
     private boolean checkSpikeCollisionsNextFrame = false;
     private Hero hero;
     private final List<Enemy> enemies;
-    public final int[][] maze;
-    private double cameraX;
+    private final AiScheduler aiScheduler = new AiScheduler();
+    // Distances to the hero shared by all chasing enemies
+    private final FlowField flowField = new FlowField();
+    // Built on first use, dropped when the maze changes
+    private CorridorTree corridorTree;
+    private HierarchicalPathFinder hierarchicalPathFinder;
+    private ThreadLocal<HierarchicalPathFinder> hierarchicalQueries; // Shares the graph, not the search scratch
+    private VisibilityCache visibilityCache;
+    private boolean dynamicTiles; // Set once a door or wall changes; enemies then replan incrementally
+    // Above this many tiles a looping maze is searched per enemy with HPA* instead of a full flow field
+    private static final int HIERARCHICAL_THRESHOLD = 1 << 18;
+    public final Maze maze;
+    private Camera camera;
+    // Largest window asked for; bigger mazes scroll with the camera
+    private static final int MAX_VIEW_WIDTH = 1280;
+    private static final int MAX_VIEW_HEIGHT = 800;
+    private final EndlessMaze endlessMaze;
+    private final Random random;
+    private static final int ENDLESS_SCROLL_MARGIN = 8; // Tile rows kept below the hero in endless mode
     private BufferedImage upperWallImage;
     private BufferedImage lowerWallImage;
     private BufferedImage pathImage;
     private BufferedImage chestImage;
     private BufferedImage exitImage;
+    private StaticTileLayer staticTileLayer; // Walls, floor, chests and exit, cached in chunks
     BufferedImage enemyBackwardSpriteSheet;
     BufferedImage enemyForwardSpriteSheet;
     BufferedImage enemyIdleSpriteSheet;
 
-    public MazePanel(int[][] maze, int rows, int cols, int level) {
-        this.maze = maze;
+    public MazePanel(Maze maze, int rows, int cols, int level, long seed) {
+        this(maze, rows, cols, level, seed, null);
+    }
+
+    public MazePanel(EndlessMaze endlessMaze, int level, long seed) {
+        this(endlessMaze.getMaze(), endlessMaze.getWindowRows(), endlessMaze.getCols(), level, seed, endlessMaze);
+    }
+
+    private MazePanel(Maze maze, int rows, int cols, int level, long seed, EndlessMaze endlessMaze) {
+        // Levels mapped from a file are read-only; take a private copy so doors and walls can change
+        this.maze = maze.getStorage().isReadOnly() ? maze.copy() : maze;
+        this.endlessMaze = endlessMaze;
+        this.random = new Random(seed); // Hero start and respawns follow the maze seed
         loadImages();
         setFocusable(true);
         requestFocusInWindow();
@@ -51,64 +91,55 @@ public class MazePanel extends JPanel {
         gameOverScreen = new GameOver(this);
         this.enemies = new ArrayList<>();
 
+        // Speeds are in cells per second, sight ranges in tiles
         enemies.add(new Enemy(1, 1, enemyIdleSpriteSheet,
-                enemyForwardSpriteSheet, enemyBackwardSpriteSheet, 45, 7, this));
+                enemyForwardSpriteSheet, enemyBackwardSpriteSheet, 2.25, 7, random.nextLong(), this));
         enemies.add(new Enemy(cols - 2, 1, enemyIdleSpriteSheet,
-                enemyForwardSpriteSheet, enemyBackwardSpriteSheet, 50, 6, this));
+                enemyForwardSpriteSheet, enemyBackwardSpriteSheet, 2.5, 6, random.nextLong(), this));
         enemies.add(new Enemy(cols / 2, rows - 2, enemyIdleSpriteSheet,
-                enemyForwardSpriteSheet, enemyBackwardSpriteSheet, 60, 5, this));
+                enemyForwardSpriteSheet, enemyBackwardSpriteSheet, 3.0, 5, random.nextLong(), this));
         enemies.add(new Enemy(cols / 2, rows - 6, enemyIdleSpriteSheet,
-                enemyForwardSpriteSheet, enemyBackwardSpriteSheet, 70, 7, this));
-        cameraX = hero.getX();
+                enemyForwardSpriteSheet, enemyBackwardSpriteSheet, 3.5, 7, random.nextLong(), this));
+        camera = new Camera(hero.getX() + CELL_SIZE / 2.0, hero.getY() + CELL_SIZE / 2.0);
 
-        int preferredWidth = maze[0].length * CELL_SIZE;
-        int preferredHeight = maze.length * CELL_SIZE;
+        int preferredWidth = Math.min(maze.getCols() * CELL_SIZE, MAX_VIEW_WIDTH);
+        int preferredHeight = Math.min(maze.getRows() * CELL_SIZE, MAX_VIEW_HEIGHT);
         setPreferredSize(new Dimension(preferredWidth, preferredHeight));
-        animationTimer = new Timer(16, new ActionListener() {
-            long lastTime = System.nanoTime();
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                long currentTime = System.nanoTime();
-                double deltaTime = (currentTime - lastTime) / 1000000000.0;
-                lastTime = currentTime;
-                update(deltaTime);
-                repaint();
-            }
-        });
+        spawnItems(0, maze.getRows());
+        gameLoop = new GameLoop(this);
+        gameLoop.start();
 
-        animationTimer.start();
-        for (int row = 0; row < maze.length; row++) {
-            for (int col = 0; col < maze[0].length; col++) {
-                if (maze[row][col] == MazeLogic.SPIKE) {
-                    int x = col * CELL_SIZE;
-                    int y = row * CELL_SIZE;
-                    spikes.add(new Spike(x, y, spikeAnimationFrames));
-                }
+        AudioPlayer.stopSound("bgc");
+        AudioPlayer.loopSound("backgroundMusic");
+    }
+
+    // Creates the animated items for the maze tiles in rows [fromRow, toRow)
+    private void spawnItems(int fromRow, int toRow) {
+        int from = maze.index(fromRow, 0);
+        int to = maze.index(toRow, 0);
+        for (int cell : maze.getSpikeCells()) {
+            if (cell >= from && cell < to) {
+                spikes.add(new Spike(maze.colOf(cell) * CELL_SIZE, maze.rowOf(cell) * CELL_SIZE, spikeAnimationFrames));
             }
         }
-
-        for (int row = 0; row < maze.length; row++) {
-            for (int col = 0; col < maze[0].length; col++) {
-                if (maze[row][col] == MazeLogic.COIN) {
-                    int x = col * CELL_SIZE;
-                    int y = row * CELL_SIZE;
-                    coins.add(new Coin(x, y, row, col, coinAnimationFrames));
-                }
+        for (int cell : maze.getCoinCells()) {
+            if (cell >= from && cell < to) {
+                int row = maze.rowOf(cell);
+                int col = maze.colOf(cell);
+                coins.add(new Coin(col * CELL_SIZE, row * CELL_SIZE, row, col, coinAnimationFrames));
             }
         }
-
-        for (int row = 0; row < maze.length; row++) {
-            for (int col = 0; col < maze[0].length; col++) {
-                if (maze[row][col] == MazeLogic.KEY) {
-                    int x = col * CELL_SIZE;
-                    int y = row * CELL_SIZE;
-                    key.add(new Key(x, y, keyAnimationFrames));
-                }
+        for (int cell : maze.getKeyCells()) {
+            if (cell >= from && cell < to) {
+                key.add(new Key(maze.colOf(cell) * CELL_SIZE, maze.rowOf(cell) * CELL_SIZE, keyAnimationFrames));
             }
         }
 
-        AudioPlayer.stopSound("bgc");
-        AudioPlayer.loopSound("backgroundMusic");
+        // Items may have moved too, so index them all again
+        itemIndex.clear(maze.getRows(), maze.getCols());
+        itemIndex.addAll(spikes);
+        itemIndex.addAll(coins);
+        itemIndex.addAll(key);
     }
 
     private void loadImages() {
@@ -156,18 +187,24 @@ public class MazePanel extends JPanel {
             upperWallImage = ImageIO.read(Objects.requireNonNull(getClass().getResource("/assets/images/mazeTiles/topWall.png")));
             lowerWallImage = ImageIO.read(Objects.requireNonNull(getClass().getResource("/assets/images/mazeTiles/lowerWall-3.png")));
             pathImage = ImageIO.read(Objects.requireNonNull(getClass().getResource("/assets/images/mazeTiles/path.png")));
+            staticTileLayer = new StaticTileLayer(upperWallImage, lowerWallImage, pathImage, chestImage, exitImage,
+                    new Color(37, 37, 37));
             BufferedImage idleSpriteSheet = ImageIO.read(Objects.requireNonNull(getClass().getResource("/assets/images/player/standing.png")));
             BufferedImage walkingForwardSpriteSheet = ImageIO.read(Objects.requireNonNull(getClass().getResource("/assets/images/player/walkingForward.png")));
             BufferedImage walkingBackwardSpriteSheet = ImageIO.read(Objects.requireNonNull(getClass().getResource("/assets/images/player/walkingBackward.png")));
             enemyBackwardSpriteSheet = ImageIO.read(Objects.requireNonNull(getClass().getResource("/assets/images/player/enemy/EnemyBackward.png")));
             enemyForwardSpriteSheet = ImageIO.read(Objects.requireNonNull(getClass().getResource("/assets/images/player/enemy/EnemyForward.png")));
             enemyIdleSpriteSheet = ImageIO.read(Objects.requireNonNull(getClass().getResource("/assets/images/player/enemy/EnemyStanding.png")));
-            Random rand = new Random();
             int startX, startY;
-            do {
-                startX = rand.nextInt(maze[0].length);
-                startY = rand.nextInt(maze.length);
-            } while (maze[startY][startX] != MazeLogic.FLOOR);
+            if (maze.hasStart()) {
+                startX = maze.getStartCol();
+                startY = maze.getStartRow();
+            } else {
+                do {
+                    startX = random.nextInt(maze.getCols());
+                    startY = random.nextInt(maze.getRows());
+                } while (maze.get(startY, startX) != MazeLogic.FLOOR);
+            }
 
             hero = new Hero(startX * CELL_SIZE, startY * CELL_SIZE, idleSpriteSheet,
                     walkingForwardSpriteSheet, walkingBackwardSpriteSheet, 60, this);
@@ -177,99 +214,242 @@ public class MazePanel extends JPanel {
         }
     }
 
+    private record KeyInput(int keyCode, boolean pressed) {
+    }
+
+    // Copies what paintComponent draws out of the live game state. Runs on the simulation thread
+    // after each tick. The maze is copied whole only when its layout changes; after setTile only the
+    // blocks holding the changed tiles are, and the tile layer redraws just their chunks.
+    public WorldSnapshot snapshot(long tick, long tickNanos) {
+        if (snapshotMazeLayout != mazeLayout) {
+            snapshotTiles = SnapshotMazeStorage.of(maze.getStorage());
+            snapshotMaze = maze.copy(snapshotTiles);
+            snapshotMazeLayout = mazeLayout;
+            changedTileCount = 0;
+        } else if (changedTileCount > 0) {
+            snapshotTiles = snapshotTiles.withChanges(maze.getStorage(), changedTiles, changedTileCount);
+            snapshotMaze = maze.copy(snapshotTiles);
+            staticTileLayer.tilesChanged(snapshotMaze, mazeLayout, changedTiles, changedTileCount);
+            changedTileCount = 0;
+        }
+        WorldSnapshot.Sprite heroSprite = new WorldSnapshot.Sprite(hero.getImage(), hero.getPreviousX(),
+                hero.getPreviousY(), hero.getX(), hero.getY());
+        List<WorldSnapshot.Sprite> enemySprites = new ArrayList<>(enemies.size());
+        for (Enemy enemy : enemies) {
+            enemySprites.add(new WorldSnapshot.Sprite(enemy.getImage(), enemy.getPreviousX(), enemy.getPreviousY(),
+                    enemy.getX(), enemy.getY()));
+        }
+        WorldSnapshot.View view = new WorldSnapshot.View(camera.getPreviousX(), camera.getPreviousY(), camera.getX(),
+                camera.getY());
+        return new WorldSnapshot(tick, tickNanos, snapshotMaze, mazeLayout, view, heroSprite, enemySprites, itemIndex.publish(),
+                heroHealthBar.getImage(), heroHealthBar.getCurrentHP(), score,
+                endlessMaze != null ? endlessMaze.getDepth() : -1);
+    }
+
+    // Draws the latest snapshot from the simulation thread; never touches live game state
     @Override
     protected void paintComponent(Graphics g) {
+        long paintStart = System.nanoTime();
         super.paintComponent(g);
         g.setColor(new Color(37, 37, 37));
         g.fillRect(0, 0, getWidth(), getHeight());
+        WorldSnapshot snapshot = gameLoop.getSnapshot();
+        if (snapshot == null) {
+            return;
+        }
+        Maze maze = snapshot.maze();
+        double alpha = gameLoop.getRenderAlpha(snapshot);
 
         Graphics2D g2d = (Graphics2D) g;
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
         Graphics2D g2dMinimap = (Graphics2D) g2d.create();
 
-        g2d.translate(0, 0);
+        // Follow the camera, or centre the maze along an axis where it fits in the window
+        int mazeWidth = maze.getCols() * CELL_SIZE;
+        int mazeHeight = maze.getRows() * CELL_SIZE;
+        WorldSnapshot.View camera = snapshot.camera();
+        int xOffset = viewOffset(getWidth(), mazeWidth, camera.renderX(alpha));
+        int yOffset = viewOffset(getHeight(), mazeHeight, camera.renderY(alpha));
+        Graphics2D world = (Graphics2D) g2d.create();
+        world.translate(xOffset, yOffset);
+
+        // Draw maze: the layout comes from the cached layer, the animated items go on top. Only
+        // what falls inside the clip, i.e. the window, is drawn.
+        staticTileLayer.paint(world, maze, snapshot.mazeLayout(), getGraphicsConfiguration(), camera.x() - camera.previousX(),
+                camera.y() - camera.previousY());
+        paintItems(world, snapshot.items(), snapshot.tick());
 
-        // Draw health bar
+        // Draw Hero after the maze, still within the transformed context
+        WorldSnapshot.Sprite hero = snapshot.hero();
+        int heroX = (int) hero.renderX(alpha);
+        int heroY = (int) hero.renderY(alpha);
+        int heroSize = 32;
+        world.drawImage(hero.image(), heroX, heroY, heroSize, heroSize, null);
+
+        Rectangle visible = world.getClipBounds();
+        for (WorldSnapshot.Sprite enemy : snapshot.enemies()) {
+            int enemyX = (int) enemy.renderX(alpha);
+            int enemyY = (int) enemy.renderY(alpha);
+            if (visible == null || visible.intersects(enemyX, enemyY, CELL_SIZE, CELL_SIZE)) {
+                world.drawImage(enemy.image(), enemyX, enemyY, CELL_SIZE, CELL_SIZE, null);
+            }
+        }
+        world.dispose();
+
+        // Draw health bar last so the maze never covers it
         int healthBarX = 10; // Example position
         int healthBarY = 10;
-        g2d.drawImage(heroHealthBar.getImage(), healthBarX, healthBarY, null);
+        g2d.drawImage(snapshot.healthBar(), healthBarX, healthBarY, null);
 
         // Draw HP number
         g2d.setColor(Color.WHITE);
         g2d.setFont(new Font("Arial", Font.BOLD, 12));
-        g2d.drawString("HP: " + heroHealthBar.getCurrentHP(), healthBarX + 5, healthBarY + 15); // Adjust position
-
-        // Center the maze
-        int mazeWidth = maze[0].length * CELL_SIZE;
-        int mazeHeight = maze.length * CELL_SIZE;
-        int xOffset = (getWidth() - mazeWidth) / 2;
-        int yOffset = (getHeight() - mazeHeight) / 2;
-        g2d.translate(xOffset, yOffset);
-
-        // Draw maze
-        for (int row = 0; row < maze.length; row++) {
-            for (int col = 0; col < maze[0].length; col++) {
-                int x = col * CELL_SIZE;
-                int y = row * CELL_SIZE;
-                if (maze[row][col] == MazeLogic.WALL) {
-                    if (hasBottomPassage(row, col)) {
-                        g2d.drawImage(lowerWallImage, x, y, CELL_SIZE, CELL_SIZE, null);
-                    } else {
-                        g2d.drawImage(upperWallImage, x, y, CELL_SIZE, CELL_SIZE, null);
-                    }
-                } else {
-                    g2d.drawImage(pathImage, x, y, CELL_SIZE, CELL_SIZE, null);
-                }
+        g2d.drawString("HP: " + snapshot.hp(), healthBarX + 5, healthBarY + 15); // Adjust position
+        if (snapshot.depth() >= 0) {
+            g2d.drawString("Depth: " + snapshot.depth(), healthBarX + 5, healthBarY + 35);
+        }
 
-                switch (maze[row][col]) {
-                    case MazeLogic.SPIKE:
-                        for (Spike spike : spikes) {
-                            g2d.drawImage(spike.getImage(), (int) spike.getX(), (int) spike.getY(), CELL_SIZE, CELL_SIZE, null);
-                        }
-                        break;
-                    case MazeLogic.TREASURE:
-                        g2d.drawImage(chestImage, x, y, CELL_SIZE, CELL_SIZE, null);
-                        break;
-                    case MazeLogic.EXIT:
-                        g2d.drawImage(exitImage, x, y, CELL_SIZE, CELL_SIZE, null);
-                        break;
-                    case MazeLogic.COIN:
-                        for (Coin coin : coins) {
-                            if (!coin.isCollected()) { // Only draw if not collected
-                                g2d.drawImage(coin.getImage(), (int) coin.getX(), (int) coin.getY(), CELL_SIZE, CELL_SIZE, null);
-                            }
-                        }
-                        break;
-                    case MazeLogic.KEY:
-                        for (Key key : key) {
-                            if (!key.isCollected()) { // Only draw if NOT collected
-                                g2d.drawImage(key.getImage(), (int) key.getX(), (int) key.getY(), CELL_SIZE, CELL_SIZE, null);
-                            }
-                        }
-                        break;
+        g2dMinimap.dispose();
+
+        Toolkit.getDefaultToolkit().sync();
+        gameLoop.recordPaint(System.nanoTime() - paintStart);
+    }
+
+    // Where the maze starts along one axis of the window: centred if it fits, otherwise centred on
+    // the camera but never scrolled past the maze's edges
+    private static int viewOffset(int viewSize, int mazeSize, double camera) {
+        if (mazeSize <= viewSize) {
+            return (viewSize - mazeSize) / 2;
+        }
+        double offset = viewSize / 2.0 - camera;
+        return (int) Math.round(Math.max(viewSize - mazeSize, Math.min(0, offset)));
+    }
+
+    // Draws each item in the chunks that overlap the clip once, in its animation frame for the tick
+    private void paintItems(Graphics2D g2d, WorldSnapshot.SpriteGrid items, long tick) {
+        int chunkSize = ItemIndex.CHUNK_TILES * CELL_SIZE;
+        int fromRow = 0, toRow = items.chunkRows(), fromCol = 0, toCol = items.chunkCols();
+        Rectangle clip = g2d.getClipBounds();
+        if (clip != null) {
+            fromRow = Math.max(0, Math.floorDiv(clip.y, chunkSize));
+            toRow = Math.min(items.chunkRows(), Math.floorDiv(clip.y + clip.height, chunkSize) + 1);
+            fromCol = Math.max(0, Math.floorDiv(clip.x, chunkSize));
+            toCol = Math.min(items.chunkCols(), Math.floorDiv(clip.x + clip.width, chunkSize) + 1);
+        }
+        for (int chunkRow = fromRow; chunkRow < toRow; chunkRow++) {
+            for (int chunkCol = fromCol; chunkCol < toCol; chunkCol++) {
+                for (WorldSnapshot.ItemSprite item : items.chunk(chunkRow, chunkCol)) {
+                    g2d.drawImage(item.image(tick), (int) item.x(), (int) item.y(), CELL_SIZE, CELL_SIZE, null);
                 }
             }
         }
+    }
 
-        // Draw Hero after the maze, still within the transformed context
-        int heroX = (int) (hero.getX());
-        int heroY = (int) (hero.getY());
-        int heroSize = 32;
-        g2d.drawImage(hero.getImage(), heroX, heroY, heroSize, heroSize, null);
+    // Changes a tile during play, e.g. opening a door or shifting a wall, and lets the enemies'
+    // planners repair their paths instead of searching again from scratch. Must run on the
+    // simulation thread, e.g. from update, since it rewrites the maze and the chase state the tick
+    // reads; the Swing thread only sees the change through the next snapshot.
+    public void setTile(int row, int col, int type) {
+        maze.set(row, col, type);
+        if (changedTileCount == changedTiles.length) {
+            changedTiles = Arrays.copyOf(changedTiles, changedTiles.length * 2);
+        }
+        changedTiles[changedTileCount++] = maze.index(row, col);
+        dynamicTiles = true;
+        flowField.invalidate();
+        corridorTree = null;
+        hierarchicalPathFinder = null;
+        if (visibilityCache != null && !visibilityCache.tileChanged(maze.index(row, col))) {
+            visibilityCache = null;
+        }
+        for (Enemy enemy : enemies) {
+            enemy.tileChanged(maze.index(row, col));
+        }
+    }
+
+    public GameLoop getGameLoop() {
+        return gameLoop;
+    }
+
+    public StaticTileLayer getStaticTileLayer() {
+        return staticTileLayer;
+    }
 
-        // g2d.translate(cameraX - getWidth() / 2.0, cameraY - getHeight() / 2.0);
+    public AiScheduler getAiScheduler() {
+        return aiScheduler;
+    }
+
+    // Line-of-sight bits shared by all enemies, traced lazily per tile. Covers the longest sight
+    // range of any enemy; prepareChase rebuilds it if a respawned enemy sees further.
+    public VisibilityCache getVisibilityCache() {
+        if (visibilityCache == null) {
+            visibilityCache = new VisibilityCache(maze, getLongestSightRange());
+        }
+        return visibilityCache;
+    }
 
+    private int getLongestSightRange() {
+        int range = 0;
         for (Enemy enemy : enemies) {
-            g.drawImage(enemy.getImage(), (int)enemy.getX(), (int)enemy.getY(), CELL_SIZE, CELL_SIZE, null);
+            range = Math.max(range, enemy.getSightRange());
         }
+        return range;
+    }
 
-        g2dMinimap.dispose();
+    public boolean hasDynamicTiles() {
+        return dynamicTiles;
+    }
 
-        Toolkit.getDefaultToolkit().sync();
+    // Builds whatever the chase needs for the hero's current tile. Runs on the simulation thread
+    // before the enemies decide, so getChaseStep and getVisibilityCache only read shared state
+    // afterwards.
+    public void prepareChase(int heroTile) {
+        if (visibilityCache != null && visibilityCache.getRange() < getLongestSightRange()) {
+            visibilityCache = null;
+        }
+        getVisibilityCache();
+        if (dynamicTiles) {
+            return; // Each enemy repairs its own plan
+        }
+        if (corridorTree == null) {
+            corridorTree = CorridorTree.of(maze);
+        }
+        if (corridorTree.isPerfect()) {
+            return;
+        }
+        if (maze.getRows() * maze.getCols() > HIERARCHICAL_THRESHOLD) {
+            if (hierarchicalPathFinder == null) {
+                HierarchicalPathFinder shared = HierarchicalPathFinder.of(maze);
+                hierarchicalPathFinder = shared;
+                hierarchicalQueries = ThreadLocal.withInitial(shared::withOwnScratch);
+            }
+            return;
+        }
+        flowField.update(maze, heroTile);
+    }
+
+    // Next tile for an enemy chasing the hero, or -1 if the hero can't be reached. Safe to call
+    // from several threads at once after prepareChase(heroTile). Only meant for mazes without
+    // dynamic tiles; if the maze changed since the last prepareChase there is nothing to read
+    // yet and this also returns -1, so the enemy waits a tick instead of racing to build it.
+    public int getChaseStep(int fromTile, int heroTile) {
+        CorridorTree corridorTree = this.corridorTree;
+        if (corridorTree == null) {
+            return -1;
+        }
+        if (corridorTree.isPerfect()) {
+            // The tree path is the only path, no search needed
+            return corridorTree.nextStep(fromTile, heroTile);
+        }
+        if (hierarchicalPathFinder != null) {
+            return hierarchicalQueries.get().nextStep(fromTile, heroTile);
+        }
+        // Step down the shared distance field towards the hero
+        return flowField.nextStep(maze, fromTile);
     }
 
-    public int[][] getMaze() {
+    public Maze getMaze() {
         return maze;
     }
 
@@ -280,17 +460,8 @@ public class MazePanel extends JPanel {
         return distance < coinBounds[2] + heroBounds[2];
     }
 
-    private boolean hasBottomPassage(int row, int col) {
-        // Check if the cell below is within bounds
-        if (row + 1 < maze.length) {
-            // Check if the cell below is NOT a wall
-            return maze[row + 1][col] != MazeLogic.WALL;
-        }
-        return false; // Cell below is out of bounds
-    }
-
     public void movePlayer(int keyCode, boolean isMoving) {
-        hero.setMoving(keyCode, isMoving); // Pass keyCode and isMoving to Hero
+        keyInputs.add(new KeyInput(keyCode, isMoving));
     }
 
     boolean isCollision(double nextX, double nextY) {
@@ -308,16 +479,21 @@ public class MazePanel extends JPanel {
             int gridX = point[0] / CELL_SIZE;
             int gridY = point[1] / CELL_SIZE;
 
-            if (isOutOfBounds(gridX, gridY) || maze[gridY][gridX] == MazeLogic.WALL) {
+            if (maze.isWall(gridY, gridX)) {
                 return true;
             }
         }
         return false;
     }
 
+    // Called from a tick on the simulation thread; the screen is shown on the Swing thread
     public void handlePlayerDeath() {
-        animationTimer.stop();
-        gameOverScreen.showGameOver(score); // Pass the score
+        if (!gameLoop.isRunning()) {
+            return; // Already over this tick
+        }
+        gameLoop.stop();
+        int finalScore = score;
+        SwingUtilities.invokeLater(() -> gameOverScreen.showGameOver(finalScore)); // Pass the score
     }
 
     public void resetGame() {
@@ -325,7 +501,7 @@ public class MazePanel extends JPanel {
         score = 0;
         //   - Reset player position
         //   - Reset enemy positions
-        animationTimer.start();
+        gameLoop.start();
     }
 
     public void showTotalScore() {
@@ -341,10 +517,6 @@ public class MazePanel extends JPanel {
         System.out.println("Go to Main Menu [Implement this]");
     }
 
-    private boolean isOutOfBounds(int x, int y) {
-        return x < 0 || x >= maze[0].length || y < 0 || y >= maze.length;
-    }
-
     private boolean checkKeyCollision(Key key, Hero hero) {
         double[] keyBounds = {key.getX() + CELL_SIZE / 2.0, key.getY() + CELL_SIZE / 2.0, CELL_SIZE / 2.0};
         double[] heroBounds = hero.getBounds();
@@ -352,72 +524,77 @@ public class MazePanel extends JPanel {
         return distance < keyBounds[2] + heroBounds[2];
     }
 
+    // One simulation tick, run on GameLoop's simulation thread with a fixed GameLoop.TICK_SECONDS
     public void update(double deltaTime) {
-        double remainingDeltaTime = deltaTime;
-        while (remainingDeltaTime > 0) {
-            double timeStep = Math.min(remainingDeltaTime, 0.01);
-            double newX = hero.getX();
-            double newY = hero.getY();
-
-            if (hero.movingLeft) {
-                newX -= hero.speed * timeStep * 2;
-                if (isCollision(newX, hero.getY())) {
-                    newX = hero.getX();
-                }
-            }
-            if (hero.movingRight) {
-                newX += hero.speed * timeStep * 2;
-                if (isCollision(newX, hero.getY())) {
-                    newX = hero.getX();
-                }
-            }
-            if (hero.movingUp) {
-                newY -= hero.speed * timeStep * 2;
-                if (isCollision(hero.getX(), newY)) {
-                    newY = hero.getY();
-                }
-            }
-            if (hero.movingDown) {
-                newY += hero.speed * timeStep * 2;
-                if (isCollision(hero.getX(), newY)) {
-                    newY = hero.getY();
-                }
-            }
+        KeyInput input;
+        while ((input = keyInputs.poll()) != null) {
+            hero.setMoving(input.keyCode(), input.pressed());
+        }
 
-            hero.x = newX;
-            hero.y = newY;
+        // Paint interpolates from where things were at the start of the tick
+        hero.savePosition();
+        for (Enemy enemy : enemies) {
+            enemy.savePosition();
+        }
 
-            remainingDeltaTime -= timeStep;
+        double newX = hero.getX();
+        double newY = hero.getY();
 
-            for (Spike spike : spikes) {
-                spike.updateAnimation(deltaTime);
+        if (hero.movingLeft) {
+            newX -= hero.speed * deltaTime * 2;
+            if (isCollision(newX, hero.getY())) {
+                newX = hero.getX();
+            }
+        }
+        if (hero.movingRight) {
+            newX += hero.speed * deltaTime * 2;
+            if (isCollision(newX, hero.getY())) {
+                newX = hero.getX();
+            }
+        }
+        if (hero.movingUp) {
+            newY -= hero.speed * deltaTime * 2;
+            if (isCollision(hero.getX(), newY)) {
+                newY = hero.getY();
+            }
+        }
+        if (hero.movingDown) {
+            newY += hero.speed * deltaTime * 2;
+            if (isCollision(hero.getX(), newY)) {
+                newY = hero.getY();
             }
         }
 
+        hero.x = newX;
+        hero.y = newY;
+
         for (Coin coin : coins) {
             if (!coin.isCollected() && checkCoinCollision(coin, hero)) {
                 coin.collect();
+                itemIndex.changed(coin);
                 score += 10; // Example: Increase score by 10
                 AudioPlayer.playSound("coin");
             }
         }
 
+        if (endlessMaze != null) {
+            scrollEndlessMaze();
+        }
+
         hero.updateAnimation();
-        repaint();
-        updateCamera();
+        updateCamera(deltaTime);
 
         for (Enemy enemy : enemies) {
-            enemy.update(hero, maze);
-        }
-
-        for (Coin coin : coins) {
-            coin.updateAnimation(deltaTime);
+            enemy.update(hero, deltaTime);
         }
+        prepareChase(maze.index(hero.getRow(), hero.getCol()));
+        aiScheduler.runFrame(enemies, hero, maze);
 
         // Key Collision Check
         for (Key key : key) {
             if (!key.isCollected() && checkKeyCollision(key, hero)) {
                 key.collect();
+                itemIndex.changed(key);
                 score += 50;
                 AudioPlayer.playSound("key");
                 System.out.println("Key Collected! Score: " + score);
@@ -425,10 +602,6 @@ public class MazePanel extends JPanel {
             }
         }
 
-        for (Key key : key) {
-            key.updateAnimation(deltaTime); // Update key animation
-        }
-
         if (hero.isHurt() && accumulatedSpikeDamage > 0) {
             heroHealthBar.reduceHP(accumulatedSpikeDamage, hero);
             accumulatedSpikeDamage = 0;
@@ -463,8 +636,8 @@ public class MazePanel extends JPanel {
             handleWin();
         }
 
-        // Check for exit door collision:
-        if (checkExitDoorCollision(hero)) {
+        // Check for exit door collision (endless mazes have no exit):
+        if (endlessMaze == null && checkExitDoorCollision(hero)) {
             if (hero.hasKey()) {
                 handleWin();
             } else {
@@ -475,36 +648,37 @@ public class MazePanel extends JPanel {
     }
 
     public void handleWin() {
-        animationTimer.stop(); // Stop the game
-        JOptionPane.showMessageDialog(this,
-                "Congratulations!\nYou Escaped the Maze!",
-                "You Win!",
-                JOptionPane.INFORMATION_MESSAGE);
-        goToMainMenu();
+        if (!gameLoop.isRunning()) {
+            return; // Already over this tick
+        }
+        gameLoop.stop(); // Stop the game
+        SwingUtilities.invokeLater(() -> {
+            JOptionPane.showMessageDialog(this,
+                    "Congratulations!\nYou Escaped the Maze!",
+                    "You Win!",
+                    JOptionPane.INFORMATION_MESSAGE);
+            goToMainMenu();
+        });
     }
 
     private boolean checkWinCondition() {
         int heroRow = hero.getRow();
         int heroCol = hero.getCol();
-        return maze[heroRow][heroCol] == MazeLogic.EXIT && hero.hasKey();
+        return maze.hasExit() && heroRow == maze.getExitRow() && heroCol == maze.getExitCol() && hero.hasKey();
     }
 
     private boolean checkExitDoorCollision(Hero hero) {
         double[] exitBounds = {0, 0, CELL_SIZE, CELL_SIZE}; // Initialize properly
         int exitRow, exitCol;
 
-        // Find the exit door coordinates (assuming only one exit)
-        for (int row = 0; row < maze.length; row++) {
-            for (int col = 0; col < maze[0].length; col++) {
-                if (maze[row][col] == MazeLogic.EXIT) {
-                    exitRow = row;
-                    exitCol = col;
-                    exitBounds[0] = exitCol * CELL_SIZE; // Set x-coordinate
-                    exitBounds[1] = exitRow * CELL_SIZE; // Set y-coordinate
-                    break;
-                }
-            }
+        // Exit door coordinates come from the maze's item index
+        if (!maze.hasExit()) {
+            return false;
         }
+        exitRow = maze.getExitRow();
+        exitCol = maze.getExitCol();
+        exitBounds[0] = exitCol * CELL_SIZE; // Set x-coordinate
+        exitBounds[1] = exitRow * CELL_SIZE; // Set y-coordinate
 
         double[] heroBounds = hero.getBounds();
         double distance = Point2D.distance(exitBounds[0] + exitBounds[2] / 2.0,
@@ -520,7 +694,50 @@ public class MazePanel extends JPanel {
         return distance < heroBounds[2] + spikeBounds[2];
     }
 
-    private void updateCamera() {
-        cameraX += (hero.getX() - cameraX) * 0.1;
+    // Streams new rows in below the hero once it gets close to the bottom of the endless window,
+    // shifting everything up and dropping whatever scrolled off the top
+    private void scrollEndlessMaze() {
+        if (hero.getRow() < maze.getRows() - ENDLESS_SCROLL_MARGIN) {
+            return;
+        }
+
+        int shiftRows = 2;
+        double shift = shiftRows * CELL_SIZE;
+        endlessMaze.advance(shiftRows);
+        mazeLayout++;
+        flowField.invalidate();
+        corridorTree = null;
+        hierarchicalPathFinder = null;
+        visibilityCache = null;
+
+        hero.shiftY(-shift);
+        camera.shiftY(-shift);
+        spikes.removeIf(spike -> spike.getY() < shift);
+        spikes.forEach(spike -> spike.shiftY(-shift));
+        coins.removeIf(coin -> coin.getY() < shift);
+        coins.forEach(coin -> coin.shiftY(-shift));
+        key.removeIf(key -> key.getY() < shift);
+        key.forEach(key -> key.shiftY(-shift));
+
+        for (int i = 0; i < enemies.size(); i++) {
+            Enemy enemy = enemies.get(i);
+            enemy.shiftY(-shift, shiftRows);
+            if (enemy.getRow() < 1) {
+                // Respawn enemies that fell off the top somewhere in the new rows
+                int col;
+                do {
+                    col = random.nextInt(maze.getCols());
+                } while (maze.get(maze.getRows() - 2, col) != MazeLogic.FLOOR);
+                enemies.set(i, new Enemy(col, maze.getRows() - 2, enemyIdleSpriteSheet,
+                        enemyForwardSpriteSheet, enemyBackwardSpriteSheet, enemy.getSpeed(), enemy.getSightRange(),
+                        random.nextLong(), this));
+            }
+        }
+
+        spawnItems(maze.getRows() - shiftRows, maze.getRows());
+    }
+
+    private void updateCamera(double deltaTime) {
+        camera.follow(hero.getX() + CELL_SIZE / 2.0, hero.getY() + CELL_SIZE / 2.0, deltaTime);
     }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+// Backing store for the tiles of a Maze, addressed by flat tile index.
+public interface MazeStorage {
+
+    int get(int index);
+
+    void set(int index, int type);
+
+    // Sets tiles [from, to) to the given type
+    void fill(int from, int to, int type);
+
+    // Copies length tiles starting at from to the range starting at to, like System.arraycopy
+    void copyWithin(int from, int to, int length);
+
+    int size();
+
+    // Memory the tiles take up, on or off the heap
+    long getSizeInBytes();
+
+    boolean isOffHeap();
+
+    // True for tiles mapped read-only from a file; copy() before changing them
+    boolean isReadOnly();
+
+    MazeStorage copy();
+}
@@ -0,0 +1,222 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+// Headless self-check for the maze storage layouts. Runs random sets, fills and overlapping
+// copyWithin calls against PackedMazeStorage and the plain ArrayMazeStorage side by side and
+// compares every tile after each one, and checks that the copy-on-write SnapshotMazeStorage follows
+// a heap maze through random edits without changing the snapshots taken before them. Then checks
+// that a packed maze generates the same tiles as a heap one. Finally writes mazes through MazeFile
+// and reads them back, and makes sure files with a corrupted header or unknown tile types are
+// rejected. Exits with status 1 if anything disagrees.
+// Usage: java MazeStorageCheck [trials] [seed]
+public class MazeStorageCheck {
+
+    private static final int MAX_REPORTED = 10;
+    private static final int OPERATIONS_PER_TRIAL = 50;
+
+    private static int failures;
+
+    public static void main(String[] args) throws IOException {
+        int trials = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        System.setProperty("java.awt.headless", "true");
+
+        checkPackedStorage(trials, new Random(seed));
+        checkSnapshotStorage(trials, new Random(seed));
+        checkPackedMaze(seed);
+        checkMazeFile(seed);
+
+        if (failures > 0) {
+            System.out.printf("%d checks failed%n", failures);
+            System.exit(1);
+        }
+        System.out.println("All checks passed");
+    }
+
+    // Sizes are kept small and odd or even at random so nibble edges and overlaps come up often
+    private static void checkPackedStorage(int trials, Random random) {
+        int before = failures;
+        for (int trial = 0; trial < trials; trial++) {
+            int size = 1 + random.nextInt(64);
+            ArrayMazeStorage expected = new ArrayMazeStorage(size);
+            PackedMazeStorage packed = new PackedMazeStorage(size);
+            for (int op = 0; op < OPERATIONS_PER_TRIAL; op++) {
+                String operation;
+                switch (random.nextInt(3)) {
+                    case 0 -> {
+                        int index = random.nextInt(size);
+                        int type = random.nextInt(16);
+                        expected.set(index, type);
+                        packed.set(index, type);
+                        operation = "set(" + index + ", " + type + ")";
+                    }
+                    case 1 -> {
+                        int from = random.nextInt(size + 1);
+                        int to = from + random.nextInt(size - from + 1);
+                        int type = random.nextInt(16);
+                        expected.fill(from, to, type);
+                        packed.fill(from, to, type);
+                        operation = "fill(" + from + ", " + to + ", " + type + ")";
+                    }
+                    default -> {
+                        int length = random.nextInt(size + 1);
+                        int from = random.nextInt(size - length + 1);
+                        int to = random.nextInt(size - length + 1);
+                        expected.copyWithin(from, to, length);
+                        packed.copyWithin(from, to, length);
+                        operation = "copyWithin(" + from + ", " + to + ", " + length + ")";
+                    }
+                }
+                if (!sameTiles(expected, packed, "trial " + trial + " op " + op + " " + operation + " on "
+                        + size + " tiles")) {
+                    break;
+                }
+            }
+            sameTiles(packed, packed.copy(), "trial " + trial + " copy()");
+        }
+        report("PackedMazeStorage", trials + " trials", before);
+    }
+
+    // Sizes span a few blocks and end mid-block; each trial keeps its first snapshot to make sure
+    // later ones never write into blocks they share with it
+    private static void checkSnapshotStorage(int trials, Random random) {
+        int before = failures;
+        for (int trial = 0; trial < Math.max(1, trials / 20); trial++) {
+            int size = 1 + random.nextInt(3 * SnapshotMazeStorage.BLOCK_TILES);
+            ArrayMazeStorage live = new ArrayMazeStorage(size);
+            for (int i = 0; i < size; i++) {
+                live.set(i, random.nextInt(16));
+            }
+            MazeStorage first = live.copy();
+            SnapshotMazeStorage firstSnapshot = SnapshotMazeStorage.of(live);
+            SnapshotMazeStorage snapshot = firstSnapshot;
+            if (!sameTiles(live, snapshot, "trial " + trial + " of(" + size + " tiles)")) {
+                continue;
+            }
+            for (int op = 0; op < OPERATIONS_PER_TRIAL; op++) {
+                int[] changed = new int[1 + random.nextInt(8)];
+                for (int i = 0; i < changed.length; i++) {
+                    changed[i] = random.nextInt(size);
+                    live.set(changed[i], random.nextInt(16));
+                }
+                snapshot = snapshot.withChanges(live, changed, changed.length);
+                if (!sameTiles(live, snapshot, "trial " + trial + " op " + op + " withChanges of "
+                        + changed.length + " tiles")) {
+                    break;
+                }
+            }
+            sameTiles(first, firstSnapshot, "trial " + trial + " first snapshot");
+            sameTiles(live, snapshot.copy(), "trial " + trial + " copy()");
+            expect(snapshot.isReadOnly(), "trial " + trial + ": snapshot is writable");
+        }
+        report("SnapshotStorage", Math.max(1, trials / 20) + " trials", before);
+    }
+
+    private static void checkPackedMaze(long seed) {
+        int before = failures;
+        Maze heap = MazeLogic.generateMaze(150, 150, new KruskalGenerator(), seed, false);
+        Maze packed = MazeLogic.generateMaze(150, 150, new KruskalGenerator(), seed, true);
+        expect(packed.getStorage().isOffHeap(), "packed maze is on the heap");
+        sameTiles(heap.getStorage(), packed.getStorage(), "packed maze");
+        report("packed Maze", "150 x 150", before);
+    }
+
+    private static void checkMazeFile(long seed) throws IOException {
+        int before = failures;
+        Path file = Files.createTempFile("maze-check", ".maze");
+        try {
+            // An odd tile count leaves half a byte of padding; the packed maze is written without unpacking
+            Maze[] mazes = {
+                    MazeLogic.generateMaze(10, 20, 1, seed),
+                    MazeLogic.generateMaze(7, 8, 3, seed),
+                    MazeLogic.generateMaze(120, 90, new KruskalGenerator(), seed, true)
+            };
+            for (Maze maze : mazes) {
+                String what = "MazeFile " + maze.getRows() + " x " + maze.getCols();
+                MazeFile.write(file, maze);
+                Maze read = MazeFile.read(file);
+                expect(read.getRows() == maze.getRows() && read.getCols() == maze.getCols(), what + ": read as "
+                        + read.getRows() + " x " + read.getCols());
+                expect(read.getSeed() == maze.getSeed(), what + ": seed " + read.getSeed());
+                expect(read.getExitIndex() == maze.getExitIndex(), what + ": exit " + read.getExitIndex());
+                expect(read.getStartIndex() == maze.getStartIndex(), what + ": start " + read.getStartIndex());
+                expect(read.getWalkableCount() == maze.getWalkableCount(), what + ": walkable "
+                        + read.getWalkableCount());
+                expect(Arrays.equals(read.getKeyCells(), maze.getKeyCells())
+                        && Arrays.equals(read.getCoinCells(), maze.getCoinCells())
+                        && Arrays.equals(read.getSpikeCells(), maze.getSpikeCells())
+                        && Arrays.equals(read.getTreasureCells(), maze.getTreasureCells()), what + ": item cells differ");
+                sameTiles(maze.getStorage(), read.getStorage(), what);
+                expect(read.getStorage().isReadOnly(), what + ": mapped tiles are writable");
+                expect(!read.copy().getStorage().isReadOnly(), what + ": copy() is read-only");
+            }
+
+            // Each corruption is written over a valid file and must be refused with an IOException
+            MazeFile.write(file, mazes[0]);
+            byte[] valid = Files.readAllBytes(file);
+            int tileCount = mazes[0].getRows() * mazes[0].getCols();
+            int[][] corruptions = {
+                    {0, 0},              // Magic
+                    {24, tileCount},     // Exit past the last tile
+                    {24, -2},            // Exit below -1
+                    {28, -1},            // Walkable count
+                    {32, -1},            // Key count
+                    {36, tileCount + 1}, // Coin count
+                    {48, tileCount}      // Start past the last tile
+            };
+            for (int[] corruption : corruptions) {
+                byte[] bytes = valid.clone();
+                ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(corruption[0], corruption[1]);
+                Files.write(file, bytes);
+                expect(rejects(file), "MazeFile accepted " + corruption[1] + " at header offset " + corruption[0]);
+            }
+            for (int type : new int[]{6, 15}) {
+                byte[] bytes = valid.clone();
+                bytes[64 + 3] = (byte) (type << 4 | MazeLogic.WALL); // Header is 64 bytes
+                Files.write(file, bytes);
+                expect(rejects(file), "MazeFile accepted tile type " + type);
+            }
+            Files.write(file, Arrays.copyOf(valid, 40));
+            expect(rejects(file), "MazeFile accepted a truncated header");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        report("MazeFile", "3 mazes", before);
+    }
+
+    private static boolean rejects(Path file) {
+        try {
+            MazeFile.read(file);
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private static boolean sameTiles(MazeStorage expected, MazeStorage actual, String what) {
+        expect(expected.size() == actual.size(), what + ": " + actual.size() + " tiles, expected " + expected.size());
+        for (int i = 0; i < Math.min(expected.size(), actual.size()); i++) {
+            if (expected.get(i) != actual.get(i)) {
+                expect(false, what + ": tile " + i + " is " + actual.get(i) + ", expected " + expected.get(i));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void expect(boolean condition, String message) {
+        if (!condition && failures++ < MAX_REPORTED) {
+            System.out.println("FAIL " + message);
+        }
+    }
+
+    private static void report(String what, String checked, int failuresBefore) {
+        System.out.printf("%-18s %14s  %s%n", what, checked,
+                failures == failuresBefore ? "ok" : (failures - failuresBefore) + " failures");
+    }
+}
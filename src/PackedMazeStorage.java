@@ -0,0 +1,109 @@
+import java.nio.ByteBuffer;
+
+// Two tiles per byte (4 bits each, low nibble first) in a direct buffer outside the Java heap.
+// Every tile type fits in a nibble, and a wall check is a single nibble read. Takes an eighth
+// of the memory of int[][] and keeps giant mazes from putting pressure on the garbage collector.
+public class PackedMazeStorage implements MazeStorage {
+    private final ByteBuffer buffer;
+    private final int size;
+
+    public PackedMazeStorage(int size) {
+        this(ByteBuffer.allocateDirect((int) ((size + 1L) / 2)), size);
+    }
+
+    // Wraps existing packed tiles, e.g. a slice of a memory-mapped maze file
+    public PackedMazeStorage(ByteBuffer buffer, int size) {
+        if (buffer.capacity() < (size + 1L) / 2) {
+            throw new IllegalArgumentException("Buffer of " + buffer.capacity() + " bytes cannot hold " + size + " tiles");
+        }
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    @Override
+    public int get(int index) {
+        int packed = buffer.get(index >>> 1);
+        return (index & 1) == 0 ? packed & 0x0F : (packed >>> 4) & 0x0F;
+    }
+
+    @Override
+    public void set(int index, int type) {
+        if ((type & ~0x0F) != 0) {
+            throw new IllegalArgumentException("Tile type " + type + " does not fit in 4 bits");
+        }
+        int position = index >>> 1;
+        int packed = buffer.get(position);
+        packed = (index & 1) == 0 ? (packed & 0xF0) | type : (packed & 0x0F) | (type << 4);
+        buffer.put(position, (byte) packed);
+    }
+
+    @Override
+    public void fill(int from, int to, int type) {
+        // Odd edges tile by tile, whole bytes in between
+        if (from < to && (from & 1) == 1) {
+            set(from++, type);
+        }
+        if (from < to && (to & 1) == 1) {
+            set(--to, type);
+        }
+        byte pair = (byte) (type | (type << 4));
+        for (int position = from >>> 1; position < to >>> 1; position++) {
+            buffer.put(position, pair);
+        }
+    }
+
+    @Override
+    public void copyWithin(int from, int to, int length) {
+        if (((from ^ to) & 1) == 0 && length > 2) {
+            // Same nibble alignment: read the odd edge tiles first, since the ranges may overlap,
+            // then move the whole bytes in between in one go
+            int head = (from & 1) == 1 ? 1 : 0;
+            int tail = ((from + length) & 1) == 1 ? 1 : 0;
+            int headType = head == 1 ? get(from) : 0;
+            int tailType = tail == 1 ? get(from + length - 1) : 0;
+            buffer.put((to + head) >>> 1, buffer, (from + head) >>> 1, (length - head - tail) >>> 1);
+            if (head == 1) set(to, headType);
+            if (tail == 1) set(to + length - 1, tailType);
+        } else if (to < from) {
+            for (int i = 0; i < length; i++) {
+                set(to + i, get(from + i));
+            }
+        } else {
+            for (int i = length - 1; i >= 0; i--) {
+                set(to + i, get(from + i));
+            }
+        }
+    }
+
+    // Read-only view of the packed bytes, for writing them out without unpacking
+    public ByteBuffer asReadOnlyBuffer() {
+        return buffer.asReadOnlyBuffer().limit((int) ((size + 1L) / 2));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public boolean isOffHeap() {
+        return buffer.isDirect();
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return buffer.isReadOnly();
+    }
+
+    @Override
+    public MazeStorage copy() {
+        PackedMazeStorage copy = new PackedMazeStorage(size);
+        copy.buffer.put(0, buffer, 0, (int) ((size + 1L) / 2));
+        return copy;
+    }
+}
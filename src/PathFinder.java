@@ -0,0 +1,218 @@
+import java.util.Arrays;
+
+// Reusable A* search over the maze's tile grid. All state lives in flat int arrays sized once per
+// maze, the open set is an indexed binary heap with decrease-key, and per-query marks are cleared
+// by bumping a generation counter instead of refilling arrays, so a query allocates nothing.
+// Not thread-safe; use one instance per thread.
+public class PathFinder {
+
+    // Offsets for the four neighbouring tiles: Up, Down, Left, Right
+    private static final int[] DIR_ROW = {-1, 1, 0, 0};
+    private static final int[] DIR_COL = {0, 0, -1, 1};
+
+    private int capacity;
+    private int[] gCost = new int[0];
+    private int[] fCost = new int[0];
+    private int[] parent = new int[0];
+    private int[] openMark = new int[0];   // == generation once a tile has been reached this query
+    private int[] closedMark = new int[0]; // == generation once a tile has been expanded this query
+    private int[] heap = new int[0];
+    private int[] heapPos = new int[0];
+    private int heapSize;
+    private int generation;
+
+    private int lastPathLength = -1;
+    private int lastExpanded;
+
+    // Runs A* from start to goal (tile indices) and returns the tile index of the first step,
+    // start itself if start == goal, or -1 if the goal can't be reached.
+    public int nextStep(Maze maze, int start, int goal) {
+        if (!search(maze, start, goal)) {
+            return -1;
+        }
+        int step = goal;
+        while (parent[step] != start && step != start) {
+            step = parent[step];
+        }
+        return step;
+    }
+
+    // Runs A* and copies the path (start first, goal last) into path; returns its tile count,
+    // or -1 if the goal can't be reached or path is too short to hold it.
+    public int findPath(Maze maze, int start, int goal, int[] path) {
+        if (!search(maze, start, goal) || lastPathLength + 1 > path.length) {
+            return -1;
+        }
+        int tile = goal;
+        for (int i = lastPathLength; i >= 0; i--) {
+            path[i] = tile;
+            tile = parent[tile];
+        }
+        return lastPathLength + 1;
+    }
+
+    private boolean search(Maze maze, int start, int goal) {
+        ensureCapacity(maze.getRows() * maze.getCols());
+        nextGeneration();
+        lastPathLength = -1;
+        lastExpanded = 0;
+        heapSize = 0;
+        if (maze.isWall(maze.rowOf(start), maze.colOf(start)) || maze.isWall(maze.rowOf(goal), maze.colOf(goal))) {
+            return false;
+        }
+
+        int cols = maze.getCols();
+        int goalRow = goal / cols;
+        int goalCol = goal % cols;
+
+        gCost[start] = 0;
+        parent[start] = start;
+        openMark[start] = generation;
+        push(start, heuristic(start, cols, goalRow, goalCol));
+
+        while (heapSize > 0) {
+            int current = pop();
+            if (current == goal) {
+                lastPathLength = gCost[goal];
+                return true;
+            }
+            closedMark[current] = generation;
+            lastExpanded++;
+
+            int row = current / cols;
+            int col = current % cols;
+            int nextCost = gCost[current] + 1;
+            for (int dir = 0; dir < 4; dir++) {
+                int nextRow = row + DIR_ROW[dir];
+                int nextCol = col + DIR_COL[dir];
+                if (maze.isWall(nextRow, nextCol)) {
+                    continue;
+                }
+                int next = nextRow * cols + nextCol;
+                if (closedMark[next] == generation) {
+                    continue;
+                }
+                if (openMark[next] != generation) {
+                    openMark[next] = generation;
+                    gCost[next] = nextCost;
+                    parent[next] = current;
+                    push(next, nextCost + heuristic(next, cols, goalRow, goalCol));
+                } else if (nextCost < gCost[next]) {
+                    gCost[next] = nextCost;
+                    parent[next] = current;
+                    decreaseKey(next, nextCost + heuristic(next, cols, goalRow, goalCol));
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int heuristic(int tile, int cols, int goalRow, int goalCol) {
+        // Manhattan distance heuristic
+        return Math.abs(tile / cols - goalRow) + Math.abs(tile % cols - goalCol);
+    }
+
+    private void ensureCapacity(int tiles) {
+        if (tiles <= capacity) {
+            return;
+        }
+        capacity = tiles;
+        gCost = new int[tiles];
+        fCost = new int[tiles];
+        parent = new int[tiles];
+        openMark = new int[tiles];
+        closedMark = new int[tiles];
+        heap = new int[tiles];
+        heapPos = new int[tiles];
+        generation = 0;
+    }
+
+    private void nextGeneration() {
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            // Marks from ~2 billion queries ago would start to collide, so wipe them once
+            Arrays.fill(openMark, 0);
+            Arrays.fill(closedMark, 0);
+            generation = 1;
+        }
+    }
+
+    private void push(int tile, int f) {
+        fCost[tile] = f;
+        heap[heapSize] = tile;
+        heapPos[tile] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private int pop() {
+        int top = heap[0];
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapPos[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void decreaseKey(int tile, int f) {
+        fCost[tile] = f;
+        siftUp(heapPos[tile]);
+    }
+
+    // Orders by f, then prefers the larger g (closer to the goal) so ties run deep instead of wide
+    private boolean less(int a, int b) {
+        return fCost[a] < fCost[b] || (fCost[a] == fCost[b] && gCost[a] > gCost[b]);
+    }
+
+    private void siftUp(int pos) {
+        int tile = heap[pos];
+        while (pos > 0) {
+            int parentPos = (pos - 1) >>> 1;
+            int above = heap[parentPos];
+            if (!less(tile, above)) {
+                break;
+            }
+            heap[pos] = above;
+            heapPos[above] = pos;
+            pos = parentPos;
+        }
+        heap[pos] = tile;
+        heapPos[tile] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int tile = heap[pos];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && less(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!less(heap[child], tile)) {
+                break;
+            }
+            heap[pos] = heap[child];
+            heapPos[heap[pos]] = pos;
+            pos = child;
+        }
+        heap[pos] = tile;
+        heapPos[tile] = pos;
+    }
+
+    // Tiles in the last path found (start excluded), or -1 if the last query failed
+    public int getLastPathLength() {
+        return lastPathLength;
+    }
+
+    // Tiles expanded by the last query
+    public int getLastExpanded() {
+        return lastExpanded;
+    }
+
+    public long getSizeInBytes() {
+        return 7L * Integer.BYTES * capacity;
+    }
+}
@@ -0,0 +1,308 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+// Headless comparison of the chase pathfinders: the old node-grid A* that Enemy used to run,
+// PathFinder, CorridorTree and HierarchicalPathFinder, plus one A* per chaser against a single
+// shared FlowField. Queries go between random floor tiles. The legacy search stops when its time
+// budget runs out because on large mazes a single query can take minutes. The last run chases a
+// hero while walls toggle, comparing A* from scratch with DStarLite. A braid fraction above
+// zero knocks out that share of the walls between cells, giving the maze loops.
+// Usage: java PathFinderBenchmark [rows] [cols] [queries] [legacySeconds] [enemies] [braid]
+public class PathFinderBenchmark {
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int cols = args.length > 1 ? Integer.parseInt(args[1]) : rows;
+        int queries = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        double legacySeconds = args.length > 3 ? Double.parseDouble(args[3]) : 10;
+        int enemies = args.length > 4 ? Integer.parseInt(args[4]) : 100;
+        double braid = args.length > 5 ? Double.parseDouble(args[5]) : 0;
+        System.setProperty("java.awt.headless", "true");
+        MazeLogic.setLogGeneration(true);
+
+        Maze maze = MazeLogic.generateMaze(rows, cols, 1, 42L);
+        Random random = new Random(7);
+        if (braid > 0) {
+            maze = maze.copy();
+            braid(maze, braid, random);
+        }
+        int[] pairs = new int[queries * 2];
+        for (int i = 0; i < pairs.length; i++) {
+            int tile;
+            do {
+                tile = random.nextInt(maze.getRows() * maze.getCols());
+            } while (maze.isWall(maze.rowOf(tile), maze.colOf(tile)));
+            pairs[i] = tile;
+        }
+        System.out.printf("%d x %d cells (%d tiles), %d random queries%n", rows, cols,
+                maze.getRows() * maze.getCols(), queries);
+
+        PathFinder pathFinder = new PathFinder();
+        // Warm-up pass so the JIT has compiled the search loop
+        for (int i = 0; i < Math.min(queries, 200); i++) {
+            pathFinder.nextStep(maze, pairs[2 * i], pairs[2 * i + 1]);
+        }
+        long expanded = 0;
+        long optimalLength = 0;
+        long[] pathFinderLatency = new long[queries];
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            long queryStart = System.nanoTime();
+            pathFinder.nextStep(maze, pairs[2 * i], pairs[2 * i + 1]);
+            pathFinderLatency[i] = System.nanoTime() - queryStart;
+            expanded += pathFinder.getLastExpanded();
+            optimalLength += pathFinder.getLastPathLength();
+        }
+        long pathFinderNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        HierarchicalPathFinder hierarchical = HierarchicalPathFinder.of(maze);
+        long hierarchicalBuildNanos = System.nanoTime() - start;
+        for (int i = 0; i < Math.min(queries, 200); i++) {
+            hierarchical.nextStep(pairs[2 * i], pairs[2 * i + 1]);
+        }
+        long hierarchicalLength = 0;
+        long[] hierarchicalLatency = new long[queries];
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            long queryStart = System.nanoTime();
+            hierarchical.nextStep(pairs[2 * i], pairs[2 * i + 1]);
+            hierarchicalLatency[i] = System.nanoTime() - queryStart;
+            hierarchicalLength += hierarchical.getLastPathLength();
+        }
+        long hierarchicalNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        CorridorTree corridorTree = CorridorTree.of(maze);
+        long treeBuildNanos = System.nanoTime() - start;
+        for (int i = 0; i < Math.min(queries, 200); i++) {
+            corridorTree.nextStep(pairs[2 * i], pairs[2 * i + 1]);
+        }
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            corridorTree.nextStep(pairs[2 * i], pairs[2 * i + 1]);
+        }
+        long treeNanos = System.nanoTime() - start;
+
+        long deadline = System.nanoTime() + (long) (legacySeconds * 1e9);
+        int legacyDone = 0;
+        start = System.nanoTime();
+        while (legacyDone < queries
+                && LegacyAStar.findPath(maze, pairs[2 * legacyDone], pairs[2 * legacyDone + 1], deadline) != null) {
+            legacyDone++;
+        }
+        long legacyNanos = System.nanoTime() - start;
+
+        System.out.printf("%-12s %10s %14s %10s %10s%n", "Engine", "queries", "queries/s", "p50 ms", "p99 ms");
+        System.out.printf("%-12s %10d %14.1f%n", "legacy", legacyDone,
+                legacyDone == 0 ? 0 : legacyDone * 1e9 / legacyNanos);
+        System.out.printf("%-12s %10d %14.1f %10.3f %10.3f%n", "PathFinder", queries, queries * 1e9 / pathFinderNanos,
+                percentile(pathFinderLatency, 0.50) / 1e6, percentile(pathFinderLatency, 0.99) / 1e6);
+        System.out.printf("%-12s %10d %14.1f %10.3f %10.3f%n", "HPA*", queries, queries * 1e9 / hierarchicalNanos,
+                percentile(hierarchicalLatency, 0.50) / 1e6, percentile(hierarchicalLatency, 0.99) / 1e6);
+        if (corridorTree.isPerfect()) {
+            System.out.printf("%-12s %10d %14.1f%n", "CorridorTree", queries, queries * 1e9 / treeNanos);
+        }
+        System.out.printf("CorridorTree: built in %.1f ms, %d KB, maze %s%n", treeBuildNanos / 1e6,
+                corridorTree.getSizeInBytes() / 1024, corridorTree.isPerfect() ? "is perfect" : "has loops");
+        System.out.printf("HPA*: built in %.1f ms, %d KB, %d nodes, %d edges, paths %.2f%% longer than optimal%n",
+                hierarchicalBuildNanos / 1e6, hierarchical.getSizeInBytes() / 1024, hierarchical.getNodeCount(),
+                hierarchical.getEdgeCount(), 100.0 * (hierarchicalLength - optimalLength) / Math.max(1, optimalLength));
+        System.out.printf("PathFinder: %.0f tiles expanded per query, %d KB of search state%n",
+                (double) expanded / queries, pathFinder.getSizeInBytes() / 1024);
+        if (legacyDone < queries) {
+            System.out.printf("Legacy search ran out of its %.0f s budget after %d queries%n", legacySeconds, legacyDone);
+        }
+
+        // Chase ticks: the hero moves to a new tile and every enemy picks its next step
+        int ticks = Math.max(1, queries / enemies);
+        start = System.nanoTime();
+        for (int tick = 0; tick < ticks; tick++) {
+            int hero = pairs[2 * tick + 1];
+            for (int enemy = 0; enemy < enemies; enemy++) {
+                pathFinder.nextStep(maze, pairs[(tick * enemies + enemy) % pairs.length], hero);
+            }
+        }
+        long perEnemyNanos = System.nanoTime() - start;
+
+        FlowField flowField = new FlowField();
+        start = System.nanoTime();
+        for (int tick = 0; tick < ticks; tick++) {
+            int hero = pairs[2 * tick + 1];
+            flowField.update(maze, hero);
+            for (int enemy = 0; enemy < enemies; enemy++) {
+                flowField.nextStep(maze, pairs[(tick * enemies + enemy) % pairs.length]);
+            }
+        }
+        long flowFieldNanos = System.nanoTime() - start;
+        System.out.printf("Chase tick with %d enemies: A* per enemy %.2f ms, shared flow field %.2f ms%n", enemies,
+                perEnemyNanos / 1e6 / ticks, flowFieldNanos / 1e6 / ticks);
+
+        // Dynamic walls: one enemy chases a wandering hero while walls between cells toggle
+        int dynamicTicks = 2000;
+        chaseWithChangingWalls(maze, pairs[0], pairs[1], dynamicTicks, true); // Warm-up
+        long[] searchStats = chaseWithChangingWalls(maze, pairs[0], pairs[1], dynamicTicks, false);
+        long[] repairStats = chaseWithChangingWalls(maze, pairs[0], pairs[1], dynamicTicks, true);
+        System.out.printf("Changing walls, %d ticks: A* from scratch %.3f ms and %d expansions per tick, "
+                        + "D* Lite %.3f ms and %d expansions per tick%n", dynamicTicks,
+                searchStats[0] / 1e6 / (dynamicTicks - 1), searchStats[1] / (dynamicTicks - 1),
+                repairStats[0] / 1e6 / (dynamicTicks - 1), repairStats[1] / (dynamicTicks - 1));
+    }
+
+    // Returns {nanos spent planning, vertices expanded} after the first tick, so D* Lite's initial
+    // full plan isn't counted. The hero and the walls follow the same random sequence in both modes.
+    private static long[] chaseWithChangingWalls(Maze original, int enemy, int hero, int ticks, boolean incremental) {
+        Maze maze = original.copy();
+        Random random = new Random(11);
+        PathFinder pathFinder = new PathFinder();
+        DStarLite planner = new DStarLite();
+        int cols = maze.getCols();
+        long nanos = 0, expanded = 0;
+        for (int tick = 0; tick < ticks; tick++) {
+            long start = System.nanoTime();
+            int step;
+            if (incremental) {
+                step = planner.nextStep(maze, enemy, hero);
+                expanded += planner.getLastExpanded();
+            } else {
+                step = pathFinder.nextStep(maze, enemy, hero);
+                expanded += pathFinder.getLastExpanded();
+            }
+            long elapsed = System.nanoTime() - start;
+            if (tick == 0) {
+                nanos = 0;
+                expanded = 0;
+            } else {
+                nanos += elapsed;
+            }
+            // At 60 ticks/s the hero crosses a tile every 8 ticks, enemies every 12 and a wall moves
+            // every half second
+            if (step >= 0 && tick % 12 == 0) {
+                enemy = step;
+            }
+            if (tick % 8 != 0) {
+                continue;
+            }
+
+            int dir = random.nextInt(4);
+            int nextRow = hero / cols + (dir == 0 ? -1 : dir == 1 ? 1 : 0);
+            int nextCol = hero % cols + (dir == 2 ? -1 : dir == 3 ? 1 : 0);
+            if (!maze.isWall(nextRow, nextCol)) {
+                hero = nextRow * cols + nextCol;
+            }
+            if (tick % 32 == 0) {
+                int row = 1 + random.nextInt(maze.getRows() - 2);
+                int col = 1 + random.nextInt(cols - 2);
+                int tile = row * cols + col;
+                if (row % 2 != col % 2 && tile != enemy && tile != hero) {
+                    maze.set(row, col, maze.get(row, col) == MazeLogic.WALL ? MazeLogic.FLOOR : MazeLogic.WALL);
+                    planner.tileChanged(tile);
+                }
+            }
+        }
+        return new long[]{nanos, expanded};
+    }
+
+    // Opens walls between neighbouring cells with the given probability
+    private static void braid(Maze maze, double fraction, Random random) {
+        for (int row = 1; row < maze.getRows() - 1; row++) {
+            for (int col = 1 + row % 2; col < maze.getCols() - 1; col += 2) {
+                if (maze.get(row, col) == MazeLogic.WALL && random.nextDouble() < fraction) {
+                    maze.set(row, col, MazeLogic.FLOOR);
+                }
+            }
+        }
+    }
+
+    // Nearest-rank percentile of unsorted latencies
+    private static long percentile(long[] nanos, double fraction) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    // The A* Enemy.findPath used before PathFinder: a fresh Node grid per query, PriorityQueue.contains
+    // and an ArrayList closed set. Kept only as a baseline.
+    private static class LegacyAStar {
+        private static class Node {
+            int row, col;
+            int gCost, hCost;
+            Node parent;
+
+            Node(int row, int col) {
+                this.row = row;
+                this.col = col;
+            }
+
+            int getFCost() {
+                return gCost + hCost;
+            }
+        }
+
+        static List<Node> findPath(Maze maze, int start, int goal, long deadline) {
+            Node[][] grid = new Node[maze.getRows()][maze.getCols()];
+            for (int i = 0; i < maze.getRows(); i++) {
+                for (int j = 0; j < maze.getCols(); j++) {
+                    grid[i][j] = new Node(i, j);
+                }
+            }
+
+            Node startNode = grid[maze.rowOf(start)][maze.colOf(start)];
+            Node goalNode = grid[maze.rowOf(goal)][maze.colOf(goal)];
+            PriorityQueue<Node> openSet = new PriorityQueue<>(Comparator.comparingInt(Node::getFCost));
+            List<Node> closedSet = new ArrayList<>();
+            startNode.hCost = heuristic(startNode, goalNode);
+            openSet.add(startNode);
+
+            while (!openSet.isEmpty()) {
+                if (System.nanoTime() > deadline) {
+                    return null;
+                }
+                Node currentNode = openSet.poll();
+                if (currentNode == goalNode) {
+                    List<Node> path = new ArrayList<>();
+                    for (Node node = currentNode; node != null; node = node.parent) {
+                        path.add(node);
+                    }
+                    Collections.reverse(path);
+                    return path;
+                }
+                closedSet.add(currentNode);
+
+                int[] dx = {-1, 1, 0, 0};
+                int[] dy = {0, 0, -1, 1};
+                for (int i = 0; i < 4; i++) {
+                    int newRow = currentNode.row + dx[i];
+                    int newCol = currentNode.col + dy[i];
+                    if (maze.isWall(newRow, newCol)) {
+                        continue;
+                    }
+                    Node neighbor = grid[newRow][newCol];
+                    if (closedSet.contains(neighbor)) {
+                        continue;
+                    }
+                    int tentativeGCost = currentNode.gCost + 1;
+                    if (!openSet.contains(neighbor) || tentativeGCost < neighbor.gCost) {
+                        neighbor.parent = currentNode;
+                        neighbor.gCost = tentativeGCost;
+                        neighbor.hCost = heuristic(neighbor, goalNode);
+                        if (!openSet.contains(neighbor)) {
+                            openSet.add(neighbor);
+                        }
+                    }
+                }
+            }
+            return Collections.emptyList();
+        }
+
+        private static int heuristic(Node a, Node b) {
+            return Math.abs(a.row - b.row) + Math.abs(a.col - b.col);
+        }
+    }
+}
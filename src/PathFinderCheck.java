@@ -0,0 +1,289 @@
+import java.util.Arrays;
+import java.util.Random;
+
+// Headless self-check for the chase pathfinders. Every answer is compared with a plain
+// breadth-first search from the goal: path lengths must match the BFS distance and every step
+// must be a neighbouring open tile one closer to the goal. Runs on a perfect maze and on a braided
+// copy with loops; D* Lite is checked tick by tick while walls open and close. Prints one line
+// per engine and maze, and exits with status 1 if anything disagrees.
+// Usage: java PathFinderCheck [rows] [cols] [queries] [seed]
+public class PathFinderCheck {
+
+    private static final int MAX_REPORTED = 10;
+
+    private static int failures;
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        int cols = args.length > 1 ? Integer.parseInt(args[1]) : rows;
+        int queries = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42L;
+        System.setProperty("java.awt.headless", "true");
+
+        Maze perfect = MazeLogic.generateMaze(rows, cols, 1, seed);
+        Maze braided = perfect.copy();
+        braid(braided, 0.1, new Random(seed));
+        checkMaze("perfect", perfect, queries, new Random(seed));
+        checkMaze("braided", braided, queries, new Random(seed));
+
+        if (failures > 0) {
+            System.out.printf("%d checks failed%n", failures);
+            System.exit(1);
+        }
+        System.out.println("All checks passed");
+    }
+
+    private static void checkMaze(String name, Maze maze, int queries, Random random) {
+        int[] pairs = randomFloorPairs(maze, queries, random);
+        checkPathFinder(name, maze, pairs);
+        checkFlowField(name, maze, pairs);
+        checkCorridorTree(name, maze, pairs);
+        for (int clusterSize : new int[]{8, HierarchicalPathFinder.DEFAULT_CLUSTER_SIZE}) {
+            checkHierarchical(name, maze, pairs, clusterSize);
+        }
+        checkDStarLite(name, maze, pairs.length / 2, random);
+    }
+
+    private static void checkPathFinder(String name, Maze maze, int[] pairs) {
+        int[] path = new int[maze.getRows() * maze.getCols()];
+        PathFinder pathFinder = new PathFinder();
+        int before = failures;
+        for (int q = 0; q < pairs.length / 2; q++) {
+            int from = pairs[2 * q];
+            int goal = pairs[2 * q + 1];
+            int[] distance = bfs(maze, goal);
+
+            String query = name + " query " + q + ": PathFinder";
+            int step = pathFinder.nextStep(maze, from, goal);
+            expect(pathFinder.getLastPathLength() == distance[from], query + " length "
+                    + pathFinder.getLastPathLength() + ", BFS " + distance[from]);
+            checkStep(maze, distance, from, step, query);
+            int length = pathFinder.findPath(maze, from, goal, path);
+            expect(length == distance[from] + 1 && path[0] == from && path[length - 1] == goal,
+                    query + " path of " + length + " tiles, BFS distance " + distance[from]);
+            for (int i = 1; i < length; i++) {
+                checkStep(maze, distance, path[i - 1], path[i], query + " path tile " + i);
+            }
+        }
+        report("PathFinder", name, pairs.length / 2 + " queries", before);
+    }
+
+    // The field is rooted at the goal, so every tile's distance is checked, not just the start's
+    private static void checkFlowField(String name, Maze maze, int[] pairs) {
+        FlowField flowField = new FlowField();
+        int before = failures;
+        for (int q = 0; q < pairs.length / 2; q++) {
+            int from = pairs[2 * q];
+            int goal = pairs[2 * q + 1];
+            int[] distance = bfs(maze, goal);
+
+            String query = name + " query " + q + ": FlowField";
+            flowField.update(maze, goal);
+            for (int tile = 0; tile < distance.length; tile++) {
+                if (distance[tile] >= 0 && flowField.getDistance(tile) != distance[tile]) {
+                    expect(false, query + " distance of " + tile + " is " + flowField.getDistance(tile)
+                            + ", BFS " + distance[tile]);
+                    break;
+                }
+            }
+            checkStep(maze, distance, from, flowField.nextStep(maze, from), query);
+        }
+        report("FlowField", name, pairs.length / 2 + " queries", before);
+    }
+
+    // Tree answers are only exact on perfect mazes, so a braided maze must be recognised as having loops
+    private static void checkCorridorTree(String name, Maze maze, int[] pairs) {
+        CorridorTree corridorTree = CorridorTree.of(maze);
+        boolean perfect = isPerfect(maze);
+        int before = failures;
+        expect(corridorTree.isPerfect() == perfect, name + ": CorridorTree says the maze "
+                + (corridorTree.isPerfect() ? "is" : "is not") + " perfect");
+        if (perfect) {
+            for (int q = 0; q < pairs.length / 2; q++) {
+                int from = pairs[2 * q];
+                int goal = pairs[2 * q + 1];
+                int[] distance = bfs(maze, goal);
+
+                String query = name + " query " + q + ": CorridorTree";
+                expect(corridorTree.getDistance(from, goal) == distance[from], query + " distance "
+                        + corridorTree.getDistance(from, goal) + ", BFS " + distance[from]);
+                checkStep(maze, distance, from, corridorTree.nextStep(from, goal), query);
+            }
+        }
+        report("CorridorTree", name, (perfect ? pairs.length / 2 : 0) + " queries", before);
+    }
+
+    // HPA* paths may be a little longer than the shortest, but never shorter, and following its steps
+    // must reach the goal within the length it reported. On a perfect maze the only path is the
+    // shortest one.
+    private static void checkHierarchical(String name, Maze maze, int[] pairs, int clusterSize) {
+        HierarchicalPathFinder hierarchical = HierarchicalPathFinder.of(maze, clusterSize);
+        boolean perfect = isPerfect(maze);
+        int before = failures;
+        for (int q = 0; q < pairs.length / 2; q++) {
+            int from = pairs[2 * q];
+            int goal = pairs[2 * q + 1];
+            int[] distance = bfs(maze, goal);
+
+            String query = name + " query " + q + ": HPA* clusters of " + clusterSize;
+            int step = hierarchical.nextStep(from, goal);
+            int length = hierarchical.getLastPathLength();
+            expect(perfect ? length == distance[from] : length >= distance[from],
+                    query + " length " + length + ", BFS " + distance[from]);
+            int tile = from;
+            int steps = 0;
+            while (tile != goal && step >= 0 && steps <= length) {
+                boolean adjacent = Math.abs(maze.rowOf(step) - maze.rowOf(tile))
+                        + Math.abs(maze.colOf(step) - maze.colOf(tile)) == 1;
+                if (!adjacent || maze.isWall(maze.rowOf(step), maze.colOf(step))) {
+                    break;
+                }
+                tile = step;
+                steps++;
+                step = hierarchical.nextStep(tile, goal);
+            }
+            expect(tile == goal && steps <= length, query + " walk from " + from + " stopped at " + tile
+                    + " after " + steps + " steps of " + length);
+        }
+        report("HPA*/" + clusterSize, name, pairs.length / 2 + " queries", before);
+    }
+
+    // One enemy chases a wandering hero on a copy of the maze while walls between cells open and
+    // close, the way MazePanel.setTile would change them. After every repair the planner's distance
+    // must match a BFS on the maze as it is now, including -1 once a change cuts the hero off.
+    private static void checkDStarLite(String name, Maze original, int ticks, Random random) {
+        Maze maze = original.copy();
+        int cols = maze.getCols();
+        int[] pair = randomFloorPairs(maze, 1, random);
+        int enemy = pair[0];
+        int hero = pair[1];
+        DStarLite planner = new DStarLite();
+        int before = failures;
+        for (int tick = 0; tick < ticks; tick++) {
+            int step = planner.nextStep(maze, enemy, hero);
+            int[] distance = bfs(maze, hero);
+
+            String query = name + " tick " + tick + ": D* Lite";
+            expect(planner.getDistance() == distance[enemy], query + " distance " + planner.getDistance()
+                    + ", BFS " + distance[enemy]);
+            if (distance[enemy] < 0) {
+                expect(step == -1, query + " steps to " + step + " with the hero cut off");
+            } else {
+                checkStep(maze, distance, enemy, step, query);
+                if (distance[enemy] > 0 && random.nextInt(3) > 0) {
+                    enemy = step;
+                }
+            }
+
+            int dir = random.nextInt(4);
+            int nextRow = hero / cols + (dir == 0 ? -1 : dir == 1 ? 1 : 0);
+            int nextCol = hero % cols + (dir == 2 ? -1 : dir == 3 ? 1 : 0);
+            if (!maze.isWall(nextRow, nextCol)) {
+                hero = nextRow * cols + nextCol;
+            }
+            for (int toggles = random.nextInt(3); toggles > 0; toggles--) {
+                int row = 1 + random.nextInt(maze.getRows() - 2);
+                int col = 1 + random.nextInt(cols - 2);
+                int tile = row * cols + col;
+                if (row % 2 != col % 2 && tile != enemy && tile != hero) {
+                    maze.set(row, col, maze.get(row, col) == MazeLogic.WALL ? MazeLogic.FLOOR : MazeLogic.WALL);
+                    planner.tileChanged(tile);
+                }
+            }
+        }
+        report("D* Lite", name, ticks + " ticks", before);
+    }
+
+    // A connected maze is perfect when its open tiles and the links between them form a tree
+    private static boolean isPerfect(Maze maze) {
+        int cols = maze.getCols();
+        int open = 0, links = 0;
+        for (int row = 0; row < maze.getRows(); row++) {
+            for (int col = 0; col < cols; col++) {
+                if (maze.isWall(row, col)) {
+                    continue;
+                }
+                open++;
+                if (!maze.isWall(row + 1, col)) {
+                    links++;
+                }
+                if (!maze.isWall(row, col + 1)) {
+                    links++;
+                }
+            }
+        }
+        return links == open - 1;
+    }
+
+    // Distance of every tile from the given one in steps, or -1 for walls and unreachable tiles
+    private static int[] bfs(Maze maze, int from) {
+        int cols = maze.getCols();
+        int[] distance = new int[maze.getRows() * cols];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[distance.length];
+        int head = 0, tail = 0;
+        distance[from] = 0;
+        queue[tail++] = from;
+        while (head < tail) {
+            int tile = queue[head++];
+            int row = tile / cols;
+            int col = tile % cols;
+            for (int dir = 0; dir < 4; dir++) {
+                int nextRow = row + (dir == 0 ? -1 : dir == 1 ? 1 : 0);
+                int nextCol = col + (dir == 2 ? -1 : dir == 3 ? 1 : 0);
+                int next = nextRow * cols + nextCol;
+                if (!maze.isWall(nextRow, nextCol) && distance[next] < 0) {
+                    distance[next] = distance[tile] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return distance;
+    }
+
+    // A step must go to an open neighbour one tile closer to the goal
+    private static void checkStep(Maze maze, int[] distance, int from, int step, String what) {
+        if (distance[from] == 0) {
+            return;
+        }
+        boolean valid = step >= 0 && step < distance.length
+                && Math.abs(maze.rowOf(step) - maze.rowOf(from)) + Math.abs(maze.colOf(step) - maze.colOf(from)) == 1
+                && distance[step] == distance[from] - 1;
+        expect(valid, what + " steps from " + from + " to " + step);
+    }
+
+    // Start and goal pairs on distinct floor tiles
+    private static int[] randomFloorPairs(Maze maze, int queries, Random random) {
+        int[] pairs = new int[queries * 2];
+        for (int i = 0; i < pairs.length; i++) {
+            int tile;
+            do {
+                tile = random.nextInt(maze.getRows() * maze.getCols());
+            } while (maze.isWall(maze.rowOf(tile), maze.colOf(tile)) || (i % 2 == 1 && tile == pairs[i - 1]));
+            pairs[i] = tile;
+        }
+        return pairs;
+    }
+
+    // Opens walls between neighbouring cells with the given probability
+    private static void braid(Maze maze, double fraction, Random random) {
+        for (int row = 1; row < maze.getRows() - 1; row++) {
+            for (int col = 1 + row % 2; col < maze.getCols() - 1; col += 2) {
+                if (maze.get(row, col) == MazeLogic.WALL && random.nextDouble() < fraction) {
+                    maze.set(row, col, MazeLogic.FLOOR);
+                }
+            }
+        }
+    }
+
+    private static void expect(boolean condition, String message) {
+        if (!condition && failures++ < MAX_REPORTED) {
+            System.out.println("FAIL " + message);
+        }
+    }
+
+    private static void report(String engine, String maze, String checked, int failuresBefore) {
+        System.out.printf("%-12s %-8s %14s  %s%n", engine, maze, checked,
+                failures == failuresBefore ? "ok" : (failures - failuresBefore) + " failures");
+    }
+}
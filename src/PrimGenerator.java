@@ -0,0 +1,77 @@
+import java.util.Random;
+
+// Randomized Prim: grow the maze from one cell by repeatedly taking a random frontier cell
+// and connecting it to a random neighbour that is already part of the maze.
+public class PrimGenerator implements MazeGenerator {
+
+    private static final byte OUTSIDE = 0;
+    private static final byte FRONTIER = 1;
+    private static final byte INSIDE = 2;
+
+    @Override
+    public void carve(Maze maze, Random random) {
+        int rows = maze.getRows() / 2;
+        int cols = maze.getCols() / 2;
+        byte[] state = new byte[rows * cols];
+        int[] frontier = new int[rows * cols];
+        int[] candidates = new int[4];
+
+        int start = random.nextInt(rows * cols);
+        int frontierSize = addCell(maze, state, frontier, 0, start, rows, cols);
+
+        while (frontierSize > 0) {
+            // Swap-remove a random frontier cell
+            int pick = random.nextInt(frontierSize);
+            int cell = frontier[pick];
+            frontier[pick] = frontier[--frontierSize];
+
+            int row = cell / cols;
+            int col = cell % cols;
+            int count = 0;
+            if (row > 0 && state[cell - cols] == INSIDE) candidates[count++] = cell - cols;
+            if (row < rows - 1 && state[cell + cols] == INSIDE) candidates[count++] = cell + cols;
+            if (col > 0 && state[cell - 1] == INSIDE) candidates[count++] = cell - 1;
+            if (col < cols - 1 && state[cell + 1] == INSIDE) candidates[count++] = cell + 1;
+
+            int neighbour = candidates[random.nextInt(count)];
+            maze.set(row + neighbour / cols + 1, col + neighbour % cols + 1, MazeLogic.FLOOR);
+            frontierSize = addCell(maze, state, frontier, frontierSize, cell, rows, cols);
+        }
+    }
+
+    private static int addCell(Maze maze, byte[] state, int[] frontier, int frontierSize,
+                               int cell, int rows, int cols) {
+        state[cell] = INSIDE;
+        int row = cell / cols;
+        int col = cell % cols;
+        maze.set(row * 2 + 1, col * 2 + 1, MazeLogic.FLOOR);
+
+        if (row > 0 && state[cell - cols] == OUTSIDE) {
+            state[cell - cols] = FRONTIER;
+            frontier[frontierSize++] = cell - cols;
+        }
+        if (row < rows - 1 && state[cell + cols] == OUTSIDE) {
+            state[cell + cols] = FRONTIER;
+            frontier[frontierSize++] = cell + cols;
+        }
+        if (col > 0 && state[cell - 1] == OUTSIDE) {
+            state[cell - 1] = FRONTIER;
+            frontier[frontierSize++] = cell - 1;
+        }
+        if (col < cols - 1 && state[cell + 1] == OUTSIDE) {
+            state[cell + 1] = FRONTIER;
+            frontier[frontierSize++] = cell + 1;
+        }
+        return frontierSize;
+    }
+
+    @Override
+    public String getName() {
+        return "Prim";
+    }
+
+    @Override
+    public long estimateWorkingBytes(int rows, int cols) {
+        return 5L * rows * cols; // Cell state plus frontier list
+    }
+}
@@ -29,6 +29,10 @@ public class SetLevel extends JPanel {
         JButton level3Button = createLevelButton("Level 3", 3);
         add(level3Button, gbc);
 
+        JButton endlessButton = new JButton("Endless Descent");
+        endlessButton.addActionListener(_ -> gameMenu.startEndlessGame());
+        add(endlessButton, gbc);
+
         // Back button
         JButton backButton = new JButton("Back");
         backButton.addActionListener(new ActionListener() {
@@ -0,0 +1,108 @@
+// Read-only tiles for the snapshots the Swing thread draws, split into blocks of BLOCK_TILES tiles
+// packed two to a byte like PackedMazeStorage. withChanges makes the next snapshot after a few tiles
+// were set by sharing every block with this one except those holding a changed tile, so publishing
+// an edit costs one block per tile instead of a copy of the whole maze. Never written after it is
+// built, so any thread may read it.
+public class SnapshotMazeStorage implements MazeStorage {
+
+    private static final int BLOCK_SHIFT = 12;
+    public static final int BLOCK_TILES = 1 << BLOCK_SHIFT;
+
+    private final byte[][] blocks;
+    private final int size;
+
+    private SnapshotMazeStorage(byte[][] blocks, int size) {
+        this.blocks = blocks;
+        this.size = size;
+    }
+
+    // A snapshot of every tile in live
+    public static SnapshotMazeStorage of(MazeStorage live) {
+        int size = live.size();
+        byte[][] blocks = new byte[(size + BLOCK_TILES - 1) >>> BLOCK_SHIFT][];
+        for (int block = 0; block < blocks.length; block++) {
+            blocks[block] = pack(live, block);
+        }
+        return new SnapshotMazeStorage(blocks, size);
+    }
+
+    // A snapshot of live, which differs from this one at most at the first count of the given tiles
+    public SnapshotMazeStorage withChanges(MazeStorage live, int[] tiles, int count) {
+        if (live.size() != size) {
+            throw new IllegalArgumentException("Storage of " + live.size() + " tiles does not match a snapshot of " + size);
+        }
+        byte[][] changed = blocks.clone();
+        for (int i = 0; i < count; i++) {
+            int block = tiles[i] >>> BLOCK_SHIFT;
+            if (changed[block] == blocks[block]) {
+                changed[block] = pack(live, block);
+            }
+        }
+        return new SnapshotMazeStorage(changed, size);
+    }
+
+    private static byte[] pack(MazeStorage live, int block) {
+        int from = block << BLOCK_SHIFT;
+        int to = Math.min(live.size(), from + BLOCK_TILES);
+        byte[] packed = new byte[(to - from + 1) >>> 1];
+        for (int i = from; i < to; i++) {
+            packed[(i - from) >>> 1] |= (byte) (live.get(i) << ((i & 1) << 2));
+        }
+        return packed;
+    }
+
+    @Override
+    public int get(int index) {
+        int packed = blocks[index >>> BLOCK_SHIFT][(index & (BLOCK_TILES - 1)) >>> 1];
+        return (index & 1) == 0 ? packed & 0x0F : (packed >>> 4) & 0x0F;
+    }
+
+    @Override
+    public void set(int index, int type) {
+        throw new UnsupportedOperationException("Snapshot tiles are read-only; copy() them first");
+    }
+
+    @Override
+    public void fill(int from, int to, int type) {
+        throw new UnsupportedOperationException("Snapshot tiles are read-only; copy() them first");
+    }
+
+    @Override
+    public void copyWithin(int from, int to, int length) {
+        throw new UnsupportedOperationException("Snapshot tiles are read-only; copy() them first");
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Counts shared blocks too, as if this snapshot were the only one
+    @Override
+    public long getSizeInBytes() {
+        long bytes = 16L + 8L * blocks.length;
+        for (byte[] block : blocks) {
+            bytes += 16L + block.length;
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean isOffHeap() {
+        return false;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public MazeStorage copy() {
+        MazeStorage copy = size > Maze.PACKED_THRESHOLD ? new PackedMazeStorage(size) : new ArrayMazeStorage(size);
+        for (int i = 0; i < size; i++) {
+            copy.set(i, get(i));
+        }
+        return copy;
+    }
+}
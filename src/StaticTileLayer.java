@@ -0,0 +1,301 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// The parts of the maze that never move (walls, floor, chests and the exit), drawn into images the
+// graphics pipeline can keep in video memory. The maze is split into CHUNK_TILES x CHUNK_TILES
+// chunks, each rendered the first time it becomes visible and kept in a least-recently-used cache
+// bounded by memory, so even mazes with millions of tiles only ever hold the chunks around the
+// view. While the camera moves, the chunks just past the edge of the view it is heading for are
+// rendered ahead on a background thread, so scrolling rarely has to render on the Swing thread.
+// The cache is dropped when paint is handed a new layout (a new or scrolled maze); when only some
+// tiles change, tilesChanged drops just the chunks that draw them.
+public class StaticTileLayer {
+
+    public static final int CHUNK_TILES = 16;
+    public static final long DEFAULT_CACHE_BYTES = 64L << 20;
+
+    // Shared by all layers; chunks are small and one thread keeps ahead of any camera
+    private static final ExecutorService PRERENDERER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "maze-tile-prerender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final BufferedImage upperWallImage;
+    private final BufferedImage lowerWallImage;
+    private final BufferedImage pathImage;
+    private final BufferedImage chestImage;
+    private final BufferedImage exitImage;
+    private final Color background;
+    private final long maxCacheBytes;
+
+    // Guarded by this; the background thread adds chunks while the Swing thread paints
+    private final LinkedHashMap<Long, BufferedImage> chunks = new LinkedHashMap<>(64, 0.75f, true);
+    private final Set<Long> pending = new HashSet<>();
+    private Maze maze;
+    private int layout = -1;
+    private long cacheBytes;
+    private long hits;
+    private long misses;
+    private long prerendered;
+    private long evictions;
+
+    public StaticTileLayer(BufferedImage upperWallImage, BufferedImage lowerWallImage, BufferedImage pathImage,
+                           BufferedImage chestImage, BufferedImage exitImage, Color background) {
+        this(upperWallImage, lowerWallImage, pathImage, chestImage, exitImage, background, DEFAULT_CACHE_BYTES);
+    }
+
+    public StaticTileLayer(BufferedImage upperWallImage, BufferedImage lowerWallImage, BufferedImage pathImage,
+                           BufferedImage chestImage, BufferedImage exitImage, Color background, long maxCacheBytes) {
+        this.upperWallImage = upperWallImage;
+        this.lowerWallImage = lowerWallImage;
+        this.pathImage = pathImage;
+        this.chestImage = chestImage;
+        this.exitImage = exitImage;
+        this.background = background;
+        this.maxCacheBytes = maxCacheBytes;
+    }
+
+    // Draws the chunks inside the clip with the maze's top left corner at the origin of g. Layout
+    // counts up each time the maze is replaced rather than edited. The direction the view is moving
+    // in (any scale, zero when still) decides what to render ahead.
+    public void paint(Graphics2D g, Maze maze, int layout, GraphicsConfiguration config, double directionX,
+                      double directionY) {
+        boolean cached;
+        synchronized (this) {
+            if (layout > this.layout) {
+                reset(maze, layout);
+            }
+            // An older snapshot of the current layout may still use chunks that are a few tile edits
+            // ahead of it, but only chunks rendered from the newest maze are kept
+            cached = layout == this.layout;
+        }
+
+        int chunkSize = CHUNK_TILES * MazePanel.CELL_SIZE;
+        int chunkRows = (maze.getRows() + CHUNK_TILES - 1) / CHUNK_TILES;
+        int chunkCols = (maze.getCols() + CHUNK_TILES - 1) / CHUNK_TILES;
+        int fromRow = 0, toRow = chunkRows, fromCol = 0, toCol = chunkCols;
+        Rectangle clip = g.getClipBounds();
+        if (clip != null) {
+            fromRow = Math.max(0, Math.floorDiv(clip.y, chunkSize));
+            toRow = Math.min(chunkRows, Math.floorDiv(clip.y + clip.height - 1, chunkSize) + 1);
+            fromCol = Math.max(0, Math.floorDiv(clip.x, chunkSize));
+            toCol = Math.min(chunkCols, Math.floorDiv(clip.x + clip.width - 1, chunkSize) + 1);
+        }
+
+        for (int chunkRow = fromRow; chunkRow < toRow; chunkRow++) {
+            for (int chunkCol = fromCol; chunkCol < toCol; chunkCol++) {
+                BufferedImage image = cached ? lookup(chunkRow, chunkCol) : null;
+                if (image == null) {
+                    image = render(maze, chunkRow, chunkCol, config);
+                    store(maze, chunkRow, chunkCol, image);
+                }
+                g.drawImage(image, chunkCol * chunkSize, chunkRow * chunkSize, null);
+            }
+        }
+
+        // Queue the row and column of chunks just past the edges the view is moving towards
+        int aheadRow = directionY > 0 ? toRow : directionY < 0 ? fromRow - 1 : -1;
+        int aheadCol = directionX > 0 ? toCol : directionX < 0 ? fromCol - 1 : -1;
+        if (aheadRow >= 0 && aheadRow < chunkRows) {
+            for (int chunkCol = Math.max(0, fromCol - 1); chunkCol < Math.min(chunkCols, toCol + 1); chunkCol++) {
+                prerender(maze, aheadRow, chunkCol, config);
+            }
+        }
+        if (aheadCol >= 0 && aheadCol < chunkCols) {
+            for (int chunkRow = Math.max(0, fromRow - 1); chunkRow < Math.min(chunkRows, toRow + 1); chunkRow++) {
+                prerender(maze, chunkRow, aheadCol, config);
+            }
+        }
+    }
+
+    // Called with each new snapshot maze after setting tiles, before the snapshot is published. Drops
+    // the chunks drawing the first count of the given tiles, plus the chunk above where a tile sits
+    // on a chunk's top row, since a wall shows its front face when the tile below it opens up.
+    public synchronized void tilesChanged(Maze maze, int layout, int[] tiles, int count) {
+        if (layout != this.layout) {
+            if (layout > this.layout) {
+                reset(maze, layout);
+            }
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            int row = maze.rowOf(tiles[i]);
+            int col = maze.colOf(tiles[i]);
+            invalidate(row / CHUNK_TILES, col / CHUNK_TILES);
+            if (row > 0 && row % CHUNK_TILES == 0) {
+                invalidate(row / CHUNK_TILES - 1, col / CHUNK_TILES);
+            }
+        }
+        this.maze = maze;
+    }
+
+    // Guarded by this
+    private void reset(Maze maze, int layout) {
+        chunks.clear();
+        pending.clear();
+        cacheBytes = 0;
+        this.maze = maze;
+        this.layout = layout;
+    }
+
+    // Guarded by this; a render still in flight for the chunk is refused by store, as its maze is stale
+    private void invalidate(int chunkRow, int chunkCol) {
+        long key = key(chunkRow, chunkCol);
+        BufferedImage image = chunks.remove(key);
+        if (image != null) {
+            cacheBytes -= sizeOf(image);
+        }
+        pending.remove(key);
+    }
+
+    private static long key(int chunkRow, int chunkCol) {
+        return (long) chunkRow << 32 | chunkCol;
+    }
+
+    private synchronized BufferedImage lookup(int chunkRow, int chunkCol) {
+        BufferedImage image = chunks.get(key(chunkRow, chunkCol));
+        if (image != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return image;
+    }
+
+    private synchronized void store(Maze maze, int chunkRow, int chunkCol, BufferedImage image) {
+        long key = key(chunkRow, chunkCol);
+        pending.remove(key);
+        if (maze != this.maze || chunks.containsKey(key)) {
+            return; // Rendered for a layout that has since changed, or beaten to it
+        }
+        chunks.put(key, image);
+        cacheBytes += sizeOf(image);
+        // Least recently drawn first; always keep the chunk just added
+        Iterator<Map.Entry<Long, BufferedImage>> eldest = chunks.entrySet().iterator();
+        while (cacheBytes > maxCacheBytes && chunks.size() > 1) {
+            BufferedImage evicted = eldest.next().getValue();
+            eldest.remove();
+            cacheBytes -= sizeOf(evicted);
+            evictions++;
+        }
+    }
+
+    private void prerender(Maze maze, int chunkRow, int chunkCol, GraphicsConfiguration config) {
+        long key = key(chunkRow, chunkCol);
+        synchronized (this) {
+            if (maze != this.maze || chunks.containsKey(key) || !pending.add(key)) {
+                return;
+            }
+        }
+        PRERENDERER.execute(() -> {
+            synchronized (this) {
+                if (maze != this.maze) {
+                    pending.remove(key);
+                    return;
+                }
+            }
+            BufferedImage image = render(maze, chunkRow, chunkCol, config);
+            synchronized (this) {
+                if (maze == this.maze && !chunks.containsKey(key)) {
+                    prerendered++;
+                }
+                store(maze, chunkRow, chunkCol, image);
+            }
+        });
+    }
+
+    private BufferedImage render(Maze maze, int chunkRow, int chunkCol, GraphicsConfiguration config) {
+        int fromRow = chunkRow * CHUNK_TILES;
+        int fromCol = chunkCol * CHUNK_TILES;
+        int rows = Math.min(CHUNK_TILES, maze.getRows() - fromRow);
+        int cols = Math.min(CHUNK_TILES, maze.getCols() - fromCol);
+        int width = cols * MazePanel.CELL_SIZE;
+        int height = rows * MazePanel.CELL_SIZE;
+        // A compatible opaque image is kept in video memory by the pipeline where it can be
+        BufferedImage image = config != null
+                ? config.createCompatibleImage(width, height, Transparency.OPAQUE)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(background);
+            g.fillRect(0, 0, width, height);
+            g.translate(-fromCol * MazePanel.CELL_SIZE, -fromRow * MazePanel.CELL_SIZE);
+            for (int row = fromRow; row < fromRow + rows; row++) {
+                for (int col = fromCol; col < fromCol + cols; col++) {
+                    drawTile(g, maze, row, col);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private void drawTile(Graphics2D g, Maze maze, int row, int col) {
+        int x = col * MazePanel.CELL_SIZE;
+        int y = row * MazePanel.CELL_SIZE;
+        int size = MazePanel.CELL_SIZE;
+        int tile = maze.get(row, col);
+        if (tile == MazeLogic.WALL) {
+            if (hasBottomPassage(maze, row, col)) {
+                g.drawImage(lowerWallImage, x, y, size, size, null);
+            } else {
+                g.drawImage(upperWallImage, x, y, size, size, null);
+            }
+            return;
+        }
+        g.drawImage(pathImage, x, y, size, size, null);
+        if (tile == MazeLogic.TREASURE) {
+            g.drawImage(chestImage, x, y, size, size, null);
+        } else if (tile == MazeLogic.EXIT) {
+            g.drawImage(exitImage, x, y, size, size, null);
+        }
+    }
+
+    private static boolean hasBottomPassage(Maze maze, int row, int col) {
+        // Walls with an open tile below show their front face
+        return row + 1 < maze.getRows() && maze.get(row + 1, col) != MazeLogic.WALL;
+    }
+
+    private static long sizeOf(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+
+    // Share of visible chunks that were already cached when drawn
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 1 : (double) hits / lookups;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getPrerendered() {
+        return prerendered;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized int getCachedChunks() {
+        return chunks.size();
+    }
+
+    public synchronized long getSizeInBytes() {
+        return cacheBytes;
+    }
+}
@@ -0,0 +1,131 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Line-of-sight lookups for enemy sight checks. For each open tile, a bitset covers the square of
+// tiles within range of it, with a bit set when the Bresenham line from that tile to the target
+// crosses no wall. A tile's bitset is traced the first time something looks from that tile, so a
+// sight check costs one line trace per tile per maze and a bit lookup after that. Lookups may run
+// on several threads: a bitset is fully written before its traced flag is published, and two
+// threads tracing the same tile write identical words.
+public class VisibilityCache {
+
+    private final Maze maze;
+    private final int range;
+    private final int side;      // 2 * range + 1
+    private final int words;     // longs per tile
+    private final int[] slotOf;  // tile -> bitset slot, -1 for walls
+    private final long[] bits;
+    private final AtomicLongArray traced; // one bit per slot, set once its bitset is filled in
+
+    public VisibilityCache(Maze maze, int range) {
+        this.maze = maze;
+        this.range = range;
+        this.side = 2 * range + 1;
+        this.words = (side * side + 63) >>> 6;
+        this.slotOf = new int[maze.getRows() * maze.getCols()];
+        int slots = 0;
+        for (int tile = 0; tile < slotOf.length; tile++) {
+            slotOf[tile] = maze.get(tile) == MazeLogic.WALL ? -1 : slots++;
+        }
+        this.bits = new long[slots * words];
+        this.traced = new AtomicLongArray((slots + 63) >>> 6);
+    }
+
+    // True if fromTile can see toTile and neither is further than the given range along either
+    // axis; ranges above the cache's own range are clamped to it
+    public boolean canSee(int fromTile, int toTile, int sightRange) {
+        int cols = maze.getCols();
+        int dRow = toTile / cols - fromTile / cols;
+        int dCol = toTile % cols - fromTile % cols;
+        int limit = Math.min(sightRange, range);
+        if (Math.abs(dRow) > limit || Math.abs(dCol) > limit) {
+            return false;
+        }
+        int slot = slotOf[fromTile];
+        if (slot < 0) {
+            return false;
+        }
+        if ((traced.get(slot >>> 6) & (1L << slot)) == 0) {
+            trace(fromTile, slot);
+        }
+        int bit = (dRow + range) * side + (dCol + range);
+        return (bits[slot * words + (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    // Forgets the bitsets of every tile that could see the changed tile; call after changing it.
+    // Returns false if the tile used to be a wall and so has no bitset; rebuild the cache then.
+    public boolean tileChanged(int tile) {
+        int cols = maze.getCols();
+        int row = tile / cols;
+        int col = tile % cols;
+        for (int viewRow = Math.max(0, row - range); viewRow <= Math.min(maze.getRows() - 1, row + range); viewRow++) {
+            for (int viewCol = Math.max(0, col - range); viewCol <= Math.min(cols - 1, col + range); viewCol++) {
+                int slot = slotOf[viewRow * cols + viewCol];
+                if (slot >= 0) {
+                    traced.getAndAccumulate(slot >>> 6, ~(1L << slot), (word, mask) -> word & mask);
+                }
+            }
+        }
+        return slotOf[tile] >= 0;
+    }
+
+    private void trace(int fromTile, int slot) {
+        int cols = maze.getCols();
+        int fromRow = fromTile / cols;
+        int fromCol = fromTile % cols;
+        long[] visible = new long[words];
+        for (int dRow = -range; dRow <= range; dRow++) {
+            for (int dCol = -range; dCol <= range; dCol++) {
+                if (maze.isInside(fromRow + dRow, fromCol + dCol)
+                        && isPathClear(fromRow, fromCol, fromRow + dRow, fromCol + dCol)) {
+                    int bit = (dRow + range) * side + (dCol + range);
+                    visible[bit >>> 6] |= 1L << bit;
+                }
+            }
+        }
+        System.arraycopy(visible, 0, bits, slot * words, words);
+        traced.getAndAccumulate(slot >>> 6, 1L << slot, (word, mask) -> word | mask);
+    }
+
+    // Bresenham walk from (x0, y0) to (x1, y1), blocked by any wall tile along the way
+    private boolean isPathClear(int x0, int y0, int x1, int y1) {
+        int dx = Math.abs(x1 - x0);
+        int dy = Math.abs(y1 - y0);
+        int sx = x0 < x1 ? 1 : -1;
+        int sy = y0 < y1 ? 1 : -1;
+        int err = (dx > dy ? dx : -dy) / 2;
+
+        while (true) {
+            if (maze.get(x0, y0) == MazeLogic.WALL) {
+                return false;
+            }
+            if (x0 == x1 && y0 == y1) {
+                return true;
+            }
+            int e2 = err;
+            if (e2 > -dx) {
+                err -= dy;
+                x0 += sx;
+            }
+            if (e2 < dy) {
+                err += dx;
+                y0 += sy;
+            }
+        }
+    }
+
+    public int getRange() {
+        return range;
+    }
+
+    public int getTracedTiles() {
+        int count = 0;
+        for (int i = 0; i < traced.length(); i++) {
+            count += Long.bitCount(traced.get(i));
+        }
+        return count;
+    }
+
+    public long getSizeInBytes() {
+        return (long) Integer.BYTES * slotOf.length + (long) Long.BYTES * (bits.length + traced.length());
+    }
+}
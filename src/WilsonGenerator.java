@@ -0,0 +1,69 @@
+import java.util.Random;
+
+// Wilson's algorithm: loop-erased random walks from every cell not yet in the maze until
+// they hit it. Produces a uniform spanning tree, at the cost of slow early walks.
+public class WilsonGenerator implements MazeGenerator {
+
+    // Offsets for the four neighbouring cells: Up, Down, Left, Right
+    private static final int[] DIR_ROW = {-1, 1, 0, 0};
+    private static final int[] DIR_COL = {0, 0, -1, 1};
+
+    @Override
+    public void carve(Maze maze, Random random) {
+        int rows = maze.getRows() / 2;
+        int cols = maze.getCols() / 2;
+        int cellCount = rows * cols;
+
+        // Last direction the walk left each cell in; overwriting it erases loops implicitly
+        byte[] exitDir = new byte[cellCount];
+        boolean[] inMaze = new boolean[cellCount];
+
+        int root = random.nextInt(cellCount);
+        inMaze[root] = true;
+        maze.set((root / cols) * 2 + 1, (root % cols) * 2 + 1, MazeLogic.FLOOR);
+
+        for (int start = 0; start < cellCount; start++) {
+            if (inMaze[start]) {
+                continue;
+            }
+
+            // Random walk until the maze is reached
+            int cell = start;
+            while (!inMaze[cell]) {
+                int row = cell / cols;
+                int col = cell % cols;
+                int dir;
+                int nextRow, nextCol;
+                do {
+                    dir = random.nextInt(4);
+                    nextRow = row + DIR_ROW[dir];
+                    nextCol = col + DIR_COL[dir];
+                } while (nextRow < 0 || nextRow >= rows || nextCol < 0 || nextCol >= cols);
+                exitDir[cell] = (byte) dir;
+                cell = nextRow * cols + nextCol;
+            }
+
+            // Retrace the loop-erased path and carve it
+            cell = start;
+            while (!inMaze[cell]) {
+                int row = cell / cols;
+                int col = cell % cols;
+                int dir = exitDir[cell];
+                inMaze[cell] = true;
+                maze.set(row * 2 + 1, col * 2 + 1, MazeLogic.FLOOR);
+                maze.set(row * 2 + 1 + DIR_ROW[dir], col * 2 + 1 + DIR_COL[dir], MazeLogic.FLOOR);
+                cell = (row + DIR_ROW[dir]) * cols + col + DIR_COL[dir];
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "Wilson";
+    }
+
+    @Override
+    public long estimateWorkingBytes(int rows, int cols) {
+        return 2L * rows * cols; // Walk directions plus in-maze flags
+    }
+}
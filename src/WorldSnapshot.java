@@ -0,0 +1,56 @@
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+// Everything paintComponent needs from one simulation tick. Built on the simulation thread at the
+// end of the tick and never changed afterwards, so the Swing thread can draw it while the next
+// tick runs. The maze is a read-only copy that is only replaced when a tile changes; mazeLayout
+// counts up when the whole maze is replaced or scrolled rather than edited.
+public record WorldSnapshot(long tick, long tickNanos, Maze maze, int mazeLayout, View camera, Sprite hero,
+                            List<Sprite> enemies, SpriteGrid items, BufferedImage healthBar, int hp, int score, long depth) {
+
+    // The point the view is centred on at the start and the end of the tick, in maze pixels
+    public record View(double previousX, double previousY, double x, double y) {
+
+        public double renderX(double alpha) {
+            return previousX + (x - previousX) * alpha;
+        }
+
+        public double renderY(double alpha) {
+            return previousY + (y - previousY) * alpha;
+        }
+    }
+
+    // A sprite with its positions at the start and the end of the tick
+    public record Sprite(BufferedImage image, double previousX, double previousY, double x, double y) {
+
+        public Sprite(BufferedImage image, double x, double y) {
+            this(image, x, y, x, y);
+        }
+
+        // Position a fraction alpha of a tick after the end of the previous one
+        public double renderX(double alpha) {
+            return previousX + (x - previousX) * alpha;
+        }
+
+        public double renderY(double alpha) {
+            return previousY + (y - previousY) * alpha;
+        }
+    }
+
+    // An item that stays put and cycles through its frames, ticksPerFrame ticks each
+    public record ItemSprite(List<BufferedImage> frames, int ticksPerFrame, int phase, double x, double y) {
+
+        public BufferedImage image(long tick) {
+            return frames.get((int) ((tick + phase) / ticksPerFrame % frames.size()));
+        }
+    }
+
+    // The items to draw, one array per ItemIndex.CHUNK_TILES square of tiles in row-major order.
+    // Every item is in exactly one chunk. The arrays are never written after publishing.
+    public record SpriteGrid(int chunkRows, int chunkCols, ItemSprite[][] chunks) {
+
+        public ItemSprite[] chunk(int chunkRow, int chunkCol) {
+            return chunks[chunkRow * chunkCols + chunkCol];
+        }
+    }
+}